@@ -0,0 +1,32 @@
+package me.chanjar.aop.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps concurrent executions of the annotated method, see {@link me.chanjar.aop.aspect.BulkheadAspect}.
+ * Calls over the limit fail fast with {@link me.chanjar.aop.limit.BulkheadFullException}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+
+  int initialLimit() default 20;
+
+  int minLimit() default 1;
+
+  int maxLimit() default 200;
+
+  /**
+   * Calls slower than this shrink the limit, faster ones let it grow while it is in use.
+   */
+  long latencyThreshold() default 100;
+
+  TimeUnit timeUnit() default TimeUnit.MILLISECONDS;
+
+}
@@ -0,0 +1,26 @@
+package me.chanjar.aop.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent calls with equal arguments share one execution, see {@link me.chanjar.aop.aspect.CoalesceAspect}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Coalesce {
+
+  /**
+   * How long a caller waits for another caller's execution before failing with
+   * {@link me.chanjar.aop.aspect.CoalesceTimeoutException}.
+   */
+  long timeout() default 10;
+
+  TimeUnit timeUnit() default TimeUnit.SECONDS;
+
+}
@@ -0,0 +1,31 @@
+package me.chanjar.aop.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the results of a pure method by its arguments, see {@link me.chanjar.aop.aspect.MemoizeAspect}.
+ * Arguments need proper {@code equals}/{@code hashCode}, arrays are compared by content.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Memoize {
+
+  /**
+   * Maximum number of cached results, least recently used ones are evicted first.
+   */
+  int maxSize() default 1000;
+
+  /**
+   * Time to live of a cached result, 0 for no expiry.
+   */
+  long ttl() default 0;
+
+  TimeUnit timeUnit() default TimeUnit.SECONDS;
+
+}
@@ -0,0 +1,23 @@
+package me.chanjar.aop.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Records the latency of every call of the annotated method, see {@link me.chanjar.aop.aspect.TimedAspect}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Timed {
+
+  /**
+   * Histogram name, defaults to the method's signature, e.g. {@code me.chanjar.aop.service.FooService.find(int)}.
+   * Methods given the same name share a histogram.
+   */
+  String value() default "";
+
+}
@@ -0,0 +1,59 @@
+package me.chanjar.aop.aspect;
+
+import me.chanjar.aop.annotation.Bulkhead;
+import me.chanjar.aop.limit.AdaptiveLimit;
+import me.chanjar.aop.limit.BulkheadFullException;
+import me.chanjar.aop.limit.LimitStats;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps one {@link AdaptiveLimit} per {@link Bulkhead} method. A call over the limit throws
+ * {@link BulkheadFullException} right away instead of waiting, so a slow dependency cannot hold every caller thread.
+ */
+@Component
+@Aspect
+public class BulkheadAspect {
+
+  private final ConcurrentMap<Method, AdaptiveLimit> limits = new ConcurrentHashMap<>();
+
+  @Around("@annotation(bulkhead)")
+  public Object limit(ProceedingJoinPoint pjp, Bulkhead bulkhead) throws Throwable {
+    Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+    AdaptiveLimit limit = limits.computeIfAbsent(method,
+        key -> new AdaptiveLimit(bulkhead.initialLimit(), bulkhead.minLimit(), bulkhead.maxLimit(),
+            bulkhead.latencyThreshold(), bulkhead.timeUnit()));
+
+    int inFlight = limit.tryAcquire();
+    if (inFlight == 0) {
+      throw new BulkheadFullException(MethodNames.signatureOf(method), limit.getLimit());
+    }
+    long start = System.nanoTime();
+    try {
+      return pjp.proceed();
+    } finally {
+      limit.release(inFlight, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Limit statistics by method signature, see {@link MethodNames#signatureOf(Method)}, sorted.
+   */
+  public Map<String, LimitStats> getStats() {
+    Map<String, LimitStats> stats = new TreeMap<>();
+    for (Map.Entry<Method, AdaptiveLimit> entry : limits.entrySet()) {
+      stats.put(MethodNames.signatureOf(entry.getKey()), entry.getValue().stats());
+    }
+    return stats;
+  }
+
+}
@@ -0,0 +1,92 @@
+package me.chanjar.aop.aspect;
+
+import me.chanjar.aop.annotation.Coalesce;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single flight for {@link me.chanjar.aop.annotation.Coalesce} methods: the first caller registers a future for
+ * its arguments and runs the method, callers with equal arguments arriving meanwhile wait for that future and get
+ * the same result, or the same exception instance. Once the call is over the next caller runs the method again.
+ * <p>
+ * Waiting is bounded by {@link Coalesce#timeout()}. A call made with the same arguments by the thread already
+ * running the method, e.g. through recursion, runs the method itself instead of waiting for its own result.
+ */
+@Component
+@Aspect
+public class CoalesceAspect {
+
+  private final ConcurrentMap<MethodInvocationKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+  private final ThreadLocal<Set<MethodInvocationKey>> running = ThreadLocal.withInitial(HashSet::new);
+
+  private final LongAdder coalesced = new LongAdder();
+
+  @Around("@annotation(coalesce)")
+  public Object coalesce(ProceedingJoinPoint pjp, Coalesce coalesce) throws Throwable {
+    Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+    MethodInvocationKey key = new MethodInvocationKey(method, pjp.getArgs());
+    Set<MethodInvocationKey> runningHere = running.get();
+    if (runningHere.contains(key)) {
+      return pjp.proceed();
+    }
+
+    CompletableFuture<Object> call = new CompletableFuture<>();
+    CompletableFuture<Object> other = inFlight.putIfAbsent(key, call);
+    if (other != null) {
+      coalesced.increment();
+      return await(other, method, coalesce);
+    }
+
+    runningHere.add(key);
+    try {
+      Object result = pjp.proceed();
+      call.complete(result);
+      return result;
+    } catch (Throwable e) {
+      call.completeExceptionally(e);
+      throw e;
+    } finally {
+      runningHere.remove(key);
+      inFlight.remove(key, call);
+    }
+  }
+
+  private static Object await(CompletableFuture<Object> call, Method method, Coalesce coalesce) throws Throwable {
+    try {
+      return call.get(coalesce.timeout(), coalesce.timeUnit());
+    } catch (ExecutionException e) {
+      throw e.getCause();
+    } catch (TimeoutException e) {
+      throw new CoalesceTimeoutException(MethodNames.signatureOf(method), coalesce.timeout(), coalesce.timeUnit());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for " + MethodNames.signatureOf(method), e);
+    }
+  }
+
+  /**
+   * Calls that waited for another caller's execution instead of running the method.
+   */
+  public long getCoalescedCount() {
+    return coalesced.sum();
+  }
+
+  public int getInFlightCount() {
+    return inFlight.size();
+  }
+
+}
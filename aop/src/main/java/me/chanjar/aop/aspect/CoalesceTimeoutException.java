@@ -0,0 +1,15 @@
+package me.chanjar.aop.aspect;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thrown to a {@link me.chanjar.aop.annotation.Coalesce} caller whose shared execution did not finish in time. The
+ * execution itself goes on for the caller running it.
+ */
+public class CoalesceTimeoutException extends RuntimeException {
+
+  public CoalesceTimeoutException(String name, long timeout, TimeUnit timeUnit) {
+    super(name + " did not finish within " + timeout + " " + timeUnit.toString().toLowerCase());
+  }
+
+}
@@ -0,0 +1,63 @@
+package me.chanjar.aop.aspect;
+
+import me.chanjar.aop.annotation.Memoize;
+import me.chanjar.aop.cache.BoundedCache;
+import me.chanjar.aop.cache.CacheStats;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches results of {@link Memoize} methods in one {@link BoundedCache} per method. A miss calls the method
+ * outside of any lock, so concurrent misses of the same key may each call it once. Exceptions are not cached.
+ */
+@Component
+@Aspect
+public class MemoizeAspect {
+
+  private static final Object NULL = new Object();
+
+  private final ConcurrentMap<Method, BoundedCache<MethodInvocationKey, Object>> caches = new ConcurrentHashMap<>();
+
+  @Around("@annotation(memoize)")
+  public Object memoize(ProceedingJoinPoint pjp, Memoize memoize) throws Throwable {
+    Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+    BoundedCache<MethodInvocationKey, Object> cache = caches.computeIfAbsent(method,
+        key -> new BoundedCache<>(memoize.maxSize(), memoize.ttl(), memoize.timeUnit()));
+
+    MethodInvocationKey key = new MethodInvocationKey(method, pjp.getArgs());
+    Object cached = cache.get(key);
+    if (cached != null) {
+      return cached == NULL ? null : cached;
+    }
+    Object result = pjp.proceed();
+    cache.put(key, result == null ? NULL : result);
+    return result;
+  }
+
+  /**
+   * Cache statistics by method signature, see {@link MethodNames#signatureOf(Method)}, sorted.
+   */
+  public Map<String, CacheStats> getStats() {
+    Map<String, CacheStats> stats = new TreeMap<>();
+    for (Map.Entry<Method, BoundedCache<MethodInvocationKey, Object>> entry : caches.entrySet()) {
+      stats.put(MethodNames.signatureOf(entry.getKey()), entry.getValue().stats());
+    }
+    return stats;
+  }
+
+  public void invalidateAll() {
+    for (BoundedCache<MethodInvocationKey, Object> cache : caches.values()) {
+      cache.invalidateAll();
+    }
+  }
+
+}
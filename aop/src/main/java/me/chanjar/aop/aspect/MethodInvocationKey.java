@@ -0,0 +1,45 @@
+package me.chanjar.aop.aspect;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * A method and its arguments, equal when the arguments are (deeply) equal.
+ */
+final class MethodInvocationKey {
+
+  private final Method method;
+
+  private final Object[] args;
+
+  private final int hash;
+
+  MethodInvocationKey(Method method, Object[] args) {
+    this.method = method;
+    this.args = args.clone();
+    this.hash = 31 * method.hashCode() + Arrays.deepHashCode(this.args);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof MethodInvocationKey)) {
+      return false;
+    }
+    MethodInvocationKey that = (MethodInvocationKey) o;
+    return hash == that.hash && method.equals(that.method) && Arrays.deepEquals(args, that.args);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return MethodNames.signatureOf(method) + Arrays.deepToString(args);
+  }
+
+}
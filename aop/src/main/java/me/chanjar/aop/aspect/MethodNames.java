@@ -0,0 +1,26 @@
+package me.chanjar.aop.aspect;
+
+import java.lang.reflect.Method;
+
+final class MethodNames {
+
+  private MethodNames() {
+  }
+
+  /**
+   * @return e.g. {@code me.chanjar.aop.service.FooService.find(java.lang.String,int)}, unique per method
+   */
+  static String signatureOf(Method method) {
+    StringBuilder signature = new StringBuilder(method.getDeclaringClass().getName())
+        .append('.').append(method.getName()).append('(');
+    Class<?>[] parameterTypes = method.getParameterTypes();
+    for (int i = 0; i < parameterTypes.length; i++) {
+      if (i > 0) {
+        signature.append(',');
+      }
+      signature.append(parameterTypes[i].getTypeName());
+    }
+    return signature.append(')').toString();
+  }
+
+}
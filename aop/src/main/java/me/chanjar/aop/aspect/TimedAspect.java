@@ -0,0 +1,58 @@
+package me.chanjar.aop.aspect;
+
+import me.chanjar.aop.annotation.Timed;
+import me.chanjar.aop.metrics.HistogramSnapshot;
+import me.chanjar.aop.metrics.LatencyHistogram;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Component
+@Aspect
+public class TimedAspect {
+
+  private final ConcurrentMap<Method, LatencyHistogram> histogramsByMethod = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, LatencyHistogram> histogramsByName = new ConcurrentHashMap<>();
+
+  @Around("@annotation(timed)")
+  public Object recordLatency(ProceedingJoinPoint pjp, Timed timed) throws Throwable {
+    LatencyHistogram histogram = histogram(((MethodSignature) pjp.getSignature()).getMethod(), timed);
+    long start = System.nanoTime();
+    try {
+      return pjp.proceed();
+    } finally {
+      histogram.record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Histogram snapshots by name, sorted.
+   */
+  public Map<String, HistogramSnapshot> getSnapshots() {
+    Map<String, HistogramSnapshot> snapshots = new TreeMap<>();
+    for (LatencyHistogram histogram : histogramsByName.values()) {
+      snapshots.put(histogram.getName(), histogram.snapshot());
+    }
+    return snapshots;
+  }
+
+  private LatencyHistogram histogram(Method method, Timed timed) {
+    LatencyHistogram histogram = histogramsByMethod.get(method);
+    if (histogram == null) {
+      String name = timed.value().isEmpty() ? MethodNames.signatureOf(method) : timed.value();
+      histogram = histogramsByName.computeIfAbsent(name, LatencyHistogram::new);
+      histogramsByMethod.putIfAbsent(method, histogram);
+    }
+    return histogram;
+  }
+
+}
@@ -0,0 +1,238 @@
+package me.chanjar.aop.cache;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Size-bounded cache with optional time to live, split into segments by key hash. Reads go to a segment's
+ * {@link ConcurrentHashMap} without locking and stamp the entry they hit. Writes take the segment's lock, and a
+ * write that overflows the segment evicts the entry with the oldest stamp out of {@link #EVICTION_SAMPLES}
+ * randomly sampled ones, so eviction is approximately least recently used.
+ * <p>
+ * Null keys and values are not supported.
+ */
+public class BoundedCache<K, V> {
+
+  private static final int MAX_SEGMENTS = 16;
+
+  private static final int EVICTION_SAMPLES = 8;
+
+  private final Segment<K, V>[] segments;
+
+  private final long ttlNanos;
+
+  private final LongSupplier clock;
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  private final LongAdder evictions = new LongAdder();
+
+  private final LongAdder expirations = new LongAdder();
+
+  /**
+   * @param ttl 0 for no expiry
+   */
+  public BoundedCache(int maxSize, long ttl, TimeUnit unit) {
+    this(maxSize, ttl, unit, System::nanoTime);
+  }
+
+  @SuppressWarnings("unchecked")
+  BoundedCache(int maxSize, long ttl, TimeUnit unit, LongSupplier clock) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+    }
+    int count = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxSize));
+    this.segments = new Segment[count];
+    for (int i = 0; i < count; i++) {
+      // spread maxSize over the segments, the first ones take the remainder
+      segments[i] = new Segment<>(maxSize / count + (i < maxSize % count ? 1 : 0), evictions);
+    }
+    this.ttlNanos = unit.toNanos(ttl);
+    this.clock = clock;
+  }
+
+  /**
+   * @return the cached value, {@code null} if absent or expired
+   */
+  public V get(K key) {
+    Segment<K, V> segment = segmentFor(key);
+    Entry<K, V> entry = segment.map.get(key);
+    if (entry != null && ttlNanos > 0 && entry.isExpired(clock.getAsLong())) {
+      synchronized (segment) {
+        if (segment.remove(entry)) {
+          expirations.increment();
+        }
+      }
+      entry = null;
+    }
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+    long stamp = segment.writes;
+    if (entry.accessed != stamp) {
+      // skipping the write keeps hot entries' cache lines shared between readers
+      entry.accessed = stamp;
+    }
+    hits.increment();
+    return entry.value;
+  }
+
+  public void put(K key, V value) {
+    long expiresAt = ttlNanos > 0 ? clock.getAsLong() + ttlNanos : 0;
+    Segment<K, V> segment = segmentFor(key);
+    synchronized (segment) {
+      segment.put(new Entry<>(key, value, expiresAt));
+    }
+  }
+
+  public void invalidate(K key) {
+    Segment<K, V> segment = segmentFor(key);
+    synchronized (segment) {
+      Entry<K, V> entry = segment.map.get(key);
+      if (entry != null) {
+        segment.remove(entry);
+      }
+    }
+  }
+
+  public void invalidateAll() {
+    for (Segment<K, V> segment : segments) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+  }
+
+  public int size() {
+    int size = 0;
+    for (Segment<K, V> segment : segments) {
+      size += segment.map.size();
+    }
+    return size;
+  }
+
+  public CacheStats stats() {
+    return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), size());
+  }
+
+  private Segment<K, V> segmentFor(K key) {
+    int h = key.hashCode();
+    h ^= h >>> 16;
+    return segments[h & (segments.length - 1)];
+  }
+
+  private static final class Entry<K, V> {
+
+    private final K key;
+
+    private final V value;
+
+    private final long expiresAt;
+
+    /**
+     * Position in the segment's sampling array, only used under the segment's lock.
+     */
+    private int index;
+
+    /**
+     * Segment write count of the last access, written without locking, so a racing read may lose its stamp.
+     */
+    private volatile long accessed;
+
+    Entry(K key, V value, long expiresAt) {
+      this.key = key;
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+
+    boolean isExpired(long now) {
+      return expiresAt != 0 && now - expiresAt >= 0;
+    }
+
+  }
+
+  /**
+   * Entries are in the map for lookups and in an array for sampling. Both are only changed under the segment's
+   * lock.
+   */
+  private static final class Segment<K, V> {
+
+    private final ConcurrentHashMap<K, Entry<K, V>> map = new ConcurrentHashMap<>();
+
+    private final ArrayList<Entry<K, V>> entries = new ArrayList<>();
+
+    private final int maxSize;
+
+    private final LongAdder evictions;
+
+    /**
+     * Incremented twice per write: a written entry is stamped with the odd value in between, so it ranks after
+     * entries read before the write and ahead of entries read after it.
+     */
+    private volatile long writes;
+
+    Segment(int maxSize, LongAdder evictions) {
+      this.maxSize = maxSize;
+      this.evictions = evictions;
+    }
+
+    void put(Entry<K, V> entry) {
+      entry.accessed = writes + 1;
+      writes += 2;
+      Entry<K, V> previous = map.put(entry.key, entry);
+      if (previous != null) {
+        entry.index = previous.index;
+        entries.set(entry.index, entry);
+        return;
+      }
+      entry.index = entries.size();
+      entries.add(entry);
+      if (entries.size() > maxSize) {
+        evict();
+      }
+    }
+
+    boolean remove(Entry<K, V> entry) {
+      if (!map.remove(entry.key, entry)) {
+        return false;
+      }
+      Entry<K, V> last = entries.remove(entries.size() - 1);
+      if (last != entry) {
+        last.index = entry.index;
+        entries.set(last.index, last);
+      }
+      return true;
+    }
+
+    /**
+     * Samples among all but the last entry, which is the one just added.
+     */
+    private void evict() {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      int candidates = entries.size() - 1;
+      Entry<K, V> oldest = null;
+      for (int i = 0; i < Math.min(EVICTION_SAMPLES, candidates); i++) {
+        Entry<K, V> sampled = entries.get(random.nextInt(candidates));
+        if (oldest == null || sampled.accessed < oldest.accessed) {
+          oldest = sampled;
+        }
+      }
+      remove(oldest);
+      evictions.increment();
+    }
+
+    void clear() {
+      map.clear();
+      entries.clear();
+    }
+
+  }
+
+}
@@ -0,0 +1,60 @@
+package me.chanjar.aop.cache;
+
+public class CacheStats {
+
+  private final long hits;
+
+  private final long misses;
+
+  private final long evictions;
+
+  private final long expirations;
+
+  private final int size;
+
+  CacheStats(long hits, long misses, long evictions, long expirations, int size) {
+    this.hits = hits;
+    this.misses = misses;
+    this.evictions = evictions;
+    this.expirations = expirations;
+    this.size = size;
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Entries dropped to stay within the maximum size.
+   */
+  public long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * Entries dropped because their time to live was over, each also counted as a miss.
+   */
+  public long getExpirations() {
+    return expirations;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public double getHitRate() {
+    long requests = hits + misses;
+    return requests == 0 ? 1.0 : (double) hits / requests;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheStats{hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+        + ", expirations=" + expirations + ", size=" + size + '}';
+  }
+
+}
@@ -0,0 +1,54 @@
+package me.chanjar.aop.config;
+
+import me.chanjar.aop.aspect.BulkheadAspect;
+import me.chanjar.aop.aspect.CoalesceAspect;
+import me.chanjar.aop.aspect.FooAspect;
+import me.chanjar.aop.aspect.MemoizeAspect;
+import me.chanjar.aop.aspect.TimedAspect;
+import org.aspectj.lang.Aspects;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Replaces {@link AopConfig} when the classes were built with the {@code aspectj-ctw} Maven profile: the advice
+ * is already woven into the target classes, so there is no auto-proxying, and the aspect beans are the
+ * singletons the woven code calls, not new instances.
+ */
+@Configuration
+@Profile("aspectj-weaving")
+@ComponentScan(basePackages = "me.chanjar.aop", excludeFilters = {
+    @ComponentScan.Filter(type = FilterType.ANNOTATION, classes = Aspect.class),
+    @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = AopConfig.class)
+})
+public class AspectJWeavingConfig {
+
+  @Bean
+  public FooAspect fooAspect() {
+    return Aspects.aspectOf(FooAspect.class);
+  }
+
+  @Bean
+  public TimedAspect timedAspect() {
+    return Aspects.aspectOf(TimedAspect.class);
+  }
+
+  @Bean
+  public MemoizeAspect memoizeAspect() {
+    return Aspects.aspectOf(MemoizeAspect.class);
+  }
+
+  @Bean
+  public CoalesceAspect coalesceAspect() {
+    return Aspects.aspectOf(CoalesceAspect.class);
+  }
+
+  @Bean
+  public BulkheadAspect bulkheadAspect() {
+    return Aspects.aspectOf(BulkheadAspect.class);
+  }
+
+}
@@ -0,0 +1,98 @@
+package me.chanjar.aop.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit adjusted by additive increase / multiplicative decrease. A call finishing within the latency
+ * threshold raises the limit by one if at least half of it was in use, a slower call multiplies it by
+ * {@link #BACKOFF_RATIO}, both within {@code [minLimit, maxLimit]}.
+ * <p>
+ * Permits are taken by a compare-and-set on the in-flight count, the limit itself is a double kept in an
+ * {@link AtomicLong}, so neither acquiring nor adjusting ever blocks.
+ */
+public class AdaptiveLimit {
+
+  static final double BACKOFF_RATIO = 0.9;
+
+  private final int minLimit;
+
+  private final int maxLimit;
+
+  private final long latencyThresholdNanos;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  private final AtomicLong limitBits;
+
+  private final LongAdder accepted = new LongAdder();
+
+  private final LongAdder rejected = new LongAdder();
+
+  public AdaptiveLimit(int initialLimit, int minLimit, int maxLimit, long latencyThreshold, TimeUnit unit) {
+    if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+      throw new IllegalArgumentException(
+          "limits must satisfy 1 <= min <= initial <= max: " + minLimit + ", " + initialLimit + ", " + maxLimit);
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.latencyThresholdNanos = unit.toNanos(latencyThreshold);
+    this.limitBits = new AtomicLong(Double.doubleToRawLongBits(initialLimit));
+  }
+
+  /**
+   * @return the number of calls in flight including this one, or 0 if the limit is reached. A positive value
+   * must be handed back to {@link #release(int, long)}.
+   */
+  public int tryAcquire() {
+    for (;;) {
+      int current = inFlight.get();
+      if (current >= getLimit()) {
+        rejected.increment();
+        return 0;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        accepted.increment();
+        return current + 1;
+      }
+    }
+  }
+
+  /**
+   * @param inFlightOnAcquire what {@link #tryAcquire()} returned
+   * @param latencyNanos      how long the call took
+   */
+  public void release(int inFlightOnAcquire, long latencyNanos) {
+    inFlight.decrementAndGet();
+    for (;;) {
+      long bits = limitBits.get();
+      double limit = Double.longBitsToDouble(bits);
+      double next;
+      if (latencyNanos > latencyThresholdNanos) {
+        next = Math.max(minLimit, limit * BACKOFF_RATIO);
+      } else if (inFlightOnAcquire * 2 >= limit) {
+        next = Math.min(maxLimit, limit + 1);
+      } else {
+        return;
+      }
+      if (next == limit || limitBits.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+        return;
+      }
+    }
+  }
+
+  public int getLimit() {
+    return (int) Double.longBitsToDouble(limitBits.get());
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  public LimitStats stats() {
+    return new LimitStats(getLimit(), getInFlight(), accepted.sum(), rejected.sum());
+  }
+
+}
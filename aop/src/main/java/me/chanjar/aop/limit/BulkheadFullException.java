@@ -0,0 +1,19 @@
+package me.chanjar.aop.limit;
+
+/**
+ * Thrown instead of calling a {@link me.chanjar.aop.annotation.Bulkhead} method whose concurrency limit is reached.
+ */
+public class BulkheadFullException extends RuntimeException {
+
+  private final int limit;
+
+  public BulkheadFullException(String name, int limit) {
+    super(name + " is at its concurrency limit of " + limit);
+    this.limit = limit;
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+}
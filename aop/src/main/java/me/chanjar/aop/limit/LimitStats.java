@@ -0,0 +1,45 @@
+package me.chanjar.aop.limit;
+
+public class LimitStats {
+
+  private final int limit;
+
+  private final int inFlight;
+
+  private final long accepted;
+
+  private final long rejected;
+
+  LimitStats(int limit, int inFlight, long accepted, long rejected) {
+    this.limit = limit;
+    this.inFlight = inFlight;
+    this.accepted = accepted;
+    this.rejected = rejected;
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  public int getInFlight() {
+    return inFlight;
+  }
+
+  public long getAccepted() {
+    return accepted;
+  }
+
+  /**
+   * Calls failed fast because the limit was reached.
+   */
+  public long getRejected() {
+    return rejected;
+  }
+
+  @Override
+  public String toString() {
+    return "LimitStats{limit=" + limit + ", inFlight=" + inFlight + ", accepted=" + accepted
+        + ", rejected=" + rejected + '}';
+  }
+
+}
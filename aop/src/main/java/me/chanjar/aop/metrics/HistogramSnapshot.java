@@ -0,0 +1,68 @@
+package me.chanjar.aop.metrics;
+
+public class HistogramSnapshot {
+
+  private final String name;
+
+  private final long[] counts;
+
+  private final long max;
+
+  private final long count;
+
+  HistogramSnapshot(String name, long[] counts, long max) {
+    this.name = name;
+    this.counts = counts;
+    this.max = max;
+    long count = 0;
+    for (long bucket : counts) {
+      count += bucket;
+    }
+    this.count = count;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public long getMax() {
+    return max;
+  }
+
+  /**
+   * @param percentile between 0 and 100
+   * @return the highest value of the bucket holding the percentile, so at most about 3% too high
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(count * Math.min(percentile, 100.0) / 100.0));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(LatencyHistogram.highestValue(i), max);
+      }
+    }
+    return max;
+  }
+
+  public double getMean() {
+    if (count == 0) {
+      return 0;
+    }
+    double sum = 0;
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] != 0) {
+        sum += (double) counts[i] * Math.min(LatencyHistogram.highestValue(i), max);
+      }
+    }
+    return sum / count;
+  }
+
+}
@@ -0,0 +1,80 @@
+package me.chanjar.aop.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of non-negative values (nanoseconds), in the style of HdrHistogram.
+ * <p>
+ * Values below {@link #SUB_BUCKETS} get a bucket each, above that every power of two is split into
+ * {@link #SUB_BUCKETS} linear buckets, so a bucket is never wider than 1/32 (about 3%) of the values in it.
+ * The bucket index is computed with a few shifts and recording is one atomic increment, nothing is allocated.
+ */
+public class LatencyHistogram {
+
+  static final int SUB_BUCKET_BITS = 5;
+
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /**
+   * Enough buckets for any positive long.
+   */
+  static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final String name;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  private final AtomicLong max = new AtomicLong();
+
+  public LatencyHistogram(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    counts.incrementAndGet(bucketIndex(value));
+    long currentMax = max.get();
+    while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+      currentMax = max.get();
+    }
+  }
+
+  /**
+   * Copy of the counts, consistent per bucket. Recording continues while the copy is taken.
+   */
+  public HistogramSnapshot snapshot() {
+    long[] copy = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      copy[i] = counts.get(i);
+    }
+    return new HistogramSnapshot(name, copy, max.get());
+  }
+
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+  }
+
+  /**
+   * Largest value that falls into the bucket.
+   */
+  static long highestValue(int index) {
+    if (index < 2 * SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long top = SUB_BUCKETS + index % SUB_BUCKETS;
+    return ((top + 1) << shift) - 1;
+  }
+
+}
@@ -0,0 +1,39 @@
+package me.chanjar.aop.metrics;
+
+import me.chanjar.aop.aspect.TimedAspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+
+/**
+ * Logs count, p50/p90/p99/p99.9 and max of every {@link TimedAspect} histogram, in microseconds.
+ */
+public class PercentileReporter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PercentileReporter.class);
+
+  private final TimedAspect timedAspect;
+
+  public PercentileReporter(TimedAspect timedAspect) {
+    this.timedAspect = timedAspect;
+  }
+
+  public void report() {
+    for (HistogramSnapshot snapshot : timedAspect.getSnapshots().values()) {
+      LOGGER.info(format(snapshot));
+    }
+  }
+
+  public static String format(HistogramSnapshot snapshot) {
+    return String.format(Locale.ROOT, "%s count=%d p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+        snapshot.getName(),
+        snapshot.getCount(),
+        snapshot.getValueAtPercentile(50) / 1000.0,
+        snapshot.getValueAtPercentile(90) / 1000.0,
+        snapshot.getValueAtPercentile(99) / 1000.0,
+        snapshot.getValueAtPercentile(99.9) / 1000.0,
+        snapshot.getMax() / 1000.0);
+  }
+
+}
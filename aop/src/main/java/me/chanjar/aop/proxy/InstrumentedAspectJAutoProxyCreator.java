@@ -0,0 +1,87 @@
+package me.chanjar.aop.proxy;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.TargetSource;
+import org.springframework.aop.aspectj.annotation.AnnotationAwareAspectJAutoProxyCreator;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The {@code @EnableAspectJAutoProxy} creator, timing pointcut matching and proxy generation of every bean and
+ * matching through the {@linkplain PointcutMatchCache#shared() shared} {@link PointcutMatchCache}, so a context
+ * reuses the matches of contexts started before it. Installed by {@link InstrumentedAutoProxyCreatorInstaller}.
+ */
+public class InstrumentedAspectJAutoProxyCreator extends AnnotationAwareAspectJAutoProxyCreator {
+
+  private final ConcurrentMap<String, ProxyCreationTiming> timings = new ConcurrentHashMap<>();
+
+  private PointcutMatchCache matchCache = PointcutMatchCache.shared();
+
+  /**
+   * @param cacheMatches {@code false} to evaluate pointcuts for every bean, {@code true} by default
+   */
+  public void setCacheMatches(boolean cacheMatches) {
+    this.matchCache = cacheMatches ? PointcutMatchCache.shared() : null;
+  }
+
+  /**
+   * @return {@code null} if matches are not cached
+   */
+  public PointcutMatchCache getMatchCache() {
+    return matchCache;
+  }
+
+  @Override
+  protected Object[] getAdvicesAndAdvisorsForBean(Class<?> beanClass, String beanName, TargetSource targetSource) {
+    long start = System.nanoTime();
+    Object[] advices = super.getAdvicesAndAdvisorsForBean(beanClass, beanName, targetSource);
+    long matchNanos = System.nanoTime() - start;
+    int advisors = advices == DO_NOT_PROXY ? 0 : advices.length;
+    record(new ProxyCreationTiming(nameOf(beanClass, beanName), beanClass, matchNanos, 0, advisors));
+    return advices;
+  }
+
+  @Override
+  protected List<Advisor> findAdvisorsThatCanApply(List<Advisor> candidateAdvisors, Class<?> beanClass,
+      String beanName) {
+    if (matchCache == null) {
+      return super.findAdvisorsThatCanApply(candidateAdvisors, beanClass, beanName);
+    }
+    return matchCache.findAdvisorsThatCanApply(candidateAdvisors, beanClass,
+        candidates -> super.findAdvisorsThatCanApply(candidates, beanClass, beanName));
+  }
+
+  @Override
+  protected Object createProxy(Class<?> beanClass, String beanName, Object[] specificInterceptors,
+      TargetSource targetSource) {
+    long start = System.nanoTime();
+    Object proxy = super.createProxy(beanClass, beanName, specificInterceptors, targetSource);
+    // at least 1 so that isProxied() holds on coarse clocks
+    long proxyNanos = Math.max(1, System.nanoTime() - start);
+    record(new ProxyCreationTiming(nameOf(beanClass, beanName), beanClass, 0, proxyNanos, 0));
+    return proxy;
+  }
+
+  /**
+   * Timings by bean name, sorted.
+   */
+  public Map<String, ProxyCreationTiming> getTimings() {
+    return new TreeMap<>(timings);
+  }
+
+  private void record(ProxyCreationTiming timing) {
+    timings.merge(timing.getBeanName(), timing, ProxyCreationTiming::plus);
+    if (logger.isDebugEnabled()) {
+      logger.debug(timing);
+    }
+  }
+
+  private static String nameOf(Class<?> beanClass, String beanName) {
+    return beanName != null ? beanName : beanClass.getName();
+  }
+
+}
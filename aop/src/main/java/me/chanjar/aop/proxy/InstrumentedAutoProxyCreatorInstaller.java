@@ -0,0 +1,40 @@
+package me.chanjar.aop.proxy;
+
+import org.springframework.aop.config.AopConfigUtils;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+
+/**
+ * Swaps the auto proxy creator registered by {@code @EnableAspectJAutoProxy} for an
+ * {@link InstrumentedAspectJAutoProxyCreator}, keeping its settings. Add it to a context next to the
+ * configuration, e.g. {@code @ContextConfiguration(classes = { AopConfig.class,
+ * InstrumentedAutoProxyCreatorInstaller.class })}; it is not picked up by component scanning.
+ */
+public class InstrumentedAutoProxyCreatorInstaller implements BeanDefinitionRegistryPostProcessor {
+
+  private boolean cacheMatches = true;
+
+  /**
+   * @see InstrumentedAspectJAutoProxyCreator#setCacheMatches(boolean)
+   */
+  public void setCacheMatches(boolean cacheMatches) {
+    this.cacheMatches = cacheMatches;
+  }
+
+  @Override
+  public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+    if (!registry.containsBeanDefinition(AopConfigUtils.AUTO_PROXY_CREATOR_BEAN_NAME)) {
+      AopConfigUtils.registerAspectJAnnotationAutoProxyCreatorIfNecessary(registry);
+    }
+    BeanDefinition creator = registry.getBeanDefinition(AopConfigUtils.AUTO_PROXY_CREATOR_BEAN_NAME);
+    creator.setBeanClassName(InstrumentedAspectJAutoProxyCreator.class.getName());
+    creator.getPropertyValues().add("cacheMatches", cacheMatches);
+  }
+
+  @Override
+  public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+  }
+
+}
@@ -0,0 +1,267 @@
+package me.chanjar.aop.proxy;
+
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.AbstractAspectJAdvice;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.aspectj.InstantiationModelAwarePointcutAdvisor;
+import org.springframework.aop.aspectj.annotation.MetadataAwareAspectInstanceFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Remembers which advisors apply to a bean class, so that further beans of that class, in the same or in a later
+ * context, do not evaluate every pointcut again. Contexts of a test suite create new advisor instances for the same
+ * aspects, so an advisor is identified by a descriptor: its aspect class, pointcut expression and advice method.
+ * Matches are attached to the bean class through a {@link ClassValue}, so the classes of a closed context's class
+ * loader can still be collected.
+ * <p>
+ * Beans are only cached when every candidate is a singleton {@code @Aspect} advisor whose expression, including
+ * the named pointcuts it refers to, does not use the {@code bean()} designator, whose result depends on the bean
+ * name rather than the class.
+ */
+public class PointcutMatchCache {
+
+  private static final PointcutMatchCache SHARED = new PointcutMatchCache();
+
+  private static final int MAX_REFERENCE_DEPTH = 8;
+
+  /**
+   * Descriptor of advisors whose matches are not cached.
+   */
+  private static final String UNCACHEABLE = "";
+
+  private static final Set<String> PRIMITIVES = new HashSet<>(Arrays.asList(
+      "execution", "call", "get", "set", "handler", "initialization", "preinitialization", "staticinitialization",
+      "adviceexecution", "within", "withincode", "cflow", "cflowbelow", "this", "target", "args", "if",
+      "@annotation", "@within", "@withincode", "@target", "@args"));
+
+  /**
+   * Replaced on {@link #clear()}, as a {@link ClassValue} cannot be enumerated.
+   */
+  private volatile ClassValue<ConcurrentMap<List<String>, int[]>> matches = newMatches();
+
+  /**
+   * Descriptors of the current advisor instances. Spring may drop entries on any garbage collection, they are
+   * recomputed then.
+   */
+  private final Map<Advisor, String> descriptors =
+      new ConcurrentReferenceHashMap<>(64, ConcurrentReferenceHashMap.ReferenceType.WEAK);
+
+  private final LongAdder size = new LongAdder();
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * The cache used by every {@link InstrumentedAspectJAutoProxyCreator} of the JVM.
+   */
+  public static PointcutMatchCache shared() {
+    return SHARED;
+  }
+
+  /**
+   * @param matcher the uncached matching, called on a miss
+   * @return the advisors out of {@code candidates} that apply to {@code beanClass}, in the order of
+   * {@code matcher}'s result
+   */
+  public List<Advisor> findAdvisorsThatCanApply(List<Advisor> candidates, Class<?> beanClass,
+      Function<List<Advisor>, List<Advisor>> matcher) {
+    List<String> key = new ArrayList<>(candidates.size());
+    for (Advisor candidate : candidates) {
+      String descriptor = descriptors.computeIfAbsent(candidate, PointcutMatchCache::describe);
+      if (descriptor.isEmpty()) {
+        return matcher.apply(candidates);
+      }
+      key.add(descriptor);
+    }
+
+    ConcurrentMap<List<String>, int[]> classMatches = matches.get(beanClass);
+    int[] matched = classMatches.get(key);
+    if (matched != null) {
+      hits.increment();
+      List<Advisor> eligible = new ArrayList<>(matched.length);
+      for (int index : matched) {
+        eligible.add(candidates.get(index));
+      }
+      return eligible;
+    }
+
+    misses.increment();
+    List<Advisor> eligible = matcher.apply(candidates);
+    matched = new int[eligible.size()];
+    for (int i = 0; i < matched.length; i++) {
+      matched[i] = indexOf(candidates, eligible.get(i));
+    }
+    if (classMatches.putIfAbsent(key, matched) == null) {
+      size.increment();
+    }
+    return eligible;
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Number of bean class and advisor combinations cached since the last {@link #clear()}, including those of
+   * classes collected since.
+   */
+  public int size() {
+    return size.intValue();
+  }
+
+  /**
+   * Forgets all matches and resets the hit and miss counts.
+   */
+  public void clear() {
+    matches = newMatches();
+    size.reset();
+    descriptors.clear();
+    hits.reset();
+    misses.reset();
+  }
+
+  /**
+   * @return aspect class, pointcut expression and advice method, or {@link #UNCACHEABLE}
+   */
+  private static String describe(Advisor candidate) {
+    if (!(candidate instanceof InstantiationModelAwarePointcutAdvisor)) {
+      return UNCACHEABLE;
+    }
+    InstantiationModelAwarePointcutAdvisor advisor = (InstantiationModelAwarePointcutAdvisor) candidate;
+    if (advisor.isLazy() || !(advisor.getPointcut() instanceof AspectJExpressionPointcut)
+        || !(advisor.getAdvice() instanceof AbstractAspectJAdvice)) {
+      return UNCACHEABLE;
+    }
+    AbstractAspectJAdvice advice = (AbstractAspectJAdvice) advisor.getAdvice();
+    if (!(advice.getAspectInstanceFactory() instanceof MetadataAwareAspectInstanceFactory)) {
+      return UNCACHEABLE;
+    }
+    Class<?> aspectType =
+        ((MetadataAwareAspectInstanceFactory) advice.getAspectInstanceFactory()).getAspectMetadata().getAspectClass();
+    String expression = ((AspectJExpressionPointcut) advisor.getPointcut()).getExpression();
+    if (aspectType == null || expression == null || usesBeanName(expression, aspectType, 0)) {
+      return UNCACHEABLE;
+    }
+    return aspectType.getName() + " " + expression + " " + advice.getAspectJAdviceMethod().toGenericString();
+  }
+
+  /**
+   * Walks the designators of {@code expression}, following references to {@code @Pointcut} methods. Anything that
+   * cannot be resolved counts as using the bean name.
+   */
+  private static boolean usesBeanName(String expression, Class<?> scope, int depth) {
+    if (depth > MAX_REFERENCE_DEPTH) {
+      return true;
+    }
+    int i = 0;
+    while (i < expression.length()) {
+      char c = expression.charAt(i);
+      if (!Character.isJavaIdentifierStart(c) && c != '@') {
+        i++;
+        continue;
+      }
+      int start = i++;
+      while (i < expression.length()
+          && (Character.isJavaIdentifierPart(expression.charAt(i)) || expression.charAt(i) == '.')) {
+        i++;
+      }
+      String name = expression.substring(start, i);
+      while (i < expression.length() && Character.isWhitespace(expression.charAt(i))) {
+        i++;
+      }
+      if (i == expression.length() || expression.charAt(i) != '(') {
+        // && / || / ! spelled out, or a binding name
+        continue;
+      }
+      int end = closingParenthesis(expression, i);
+      if (end < 0 || "bean".equals(name)) {
+        return true;
+      }
+      if (!PRIMITIVES.contains(name)) {
+        String referenced = pointcutExpression(name, scope);
+        if (referenced == null || usesBeanName(referenced, scope, depth + 1)) {
+          return true;
+        }
+      }
+      i = end + 1;
+    }
+    return false;
+  }
+
+  private static int closingParenthesis(String expression, int open) {
+    int depth = 0;
+    for (int i = open; i < expression.length(); i++) {
+      if (expression.charAt(i) == '(') {
+        depth++;
+      } else if (expression.charAt(i) == ')' && --depth == 0) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @param name {@code method} of the aspect, or {@code package.Type.method}
+   */
+  private static String pointcutExpression(String name, Class<?> scope) {
+    int dot = name.lastIndexOf('.');
+    Class<?> type = scope;
+    if (dot >= 0) {
+      try {
+        type = ClassUtils.forName(name.substring(0, dot), scope.getClassLoader());
+      } catch (ClassNotFoundException | LinkageError e) {
+        return null;
+      }
+    }
+    String methodName = name.substring(dot + 1);
+    for (Class<?> declaring = type; declaring != null; declaring = declaring.getSuperclass()) {
+      for (Method method : declaring.getDeclaredMethods()) {
+        Pointcut pointcut = method.getAnnotation(Pointcut.class);
+        if (pointcut != null && method.getName().equals(methodName)) {
+          return pointcut.value();
+        }
+      }
+    }
+    return null;
+  }
+
+  private static ClassValue<ConcurrentMap<List<String>, int[]>> newMatches() {
+    return new ClassValue<ConcurrentMap<List<String>, int[]>>() {
+
+      @Override
+      protected ConcurrentMap<List<String>, int[]> computeValue(Class<?> type) {
+        return new ConcurrentHashMap<>();
+      }
+
+    };
+  }
+
+  private static int indexOf(List<Advisor> candidates, Advisor advisor) {
+    for (int i = 0; i < candidates.size(); i++) {
+      if (candidates.get(i) == advisor) {
+        return i;
+      }
+    }
+    throw new IllegalStateException("Not a candidate: " + advisor);
+  }
+
+}
@@ -0,0 +1,67 @@
+package me.chanjar.aop.proxy;
+
+/**
+ * Time {@link InstrumentedAspectJAutoProxyCreator} spent on one bean.
+ */
+public class ProxyCreationTiming {
+
+  private final String beanName;
+
+  private final Class<?> beanClass;
+
+  private final long matchNanos;
+
+  private final long proxyNanos;
+
+  private final int advisors;
+
+  ProxyCreationTiming(String beanName, Class<?> beanClass, long matchNanos, long proxyNanos, int advisors) {
+    this.beanName = beanName;
+    this.beanClass = beanClass;
+    this.matchNanos = matchNanos;
+    this.proxyNanos = proxyNanos;
+    this.advisors = advisors;
+  }
+
+  ProxyCreationTiming plus(ProxyCreationTiming other) {
+    return new ProxyCreationTiming(beanName, beanClass, matchNanos + other.matchNanos,
+        proxyNanos + other.proxyNanos, Math.max(advisors, other.advisors));
+  }
+
+  public String getBeanName() {
+    return beanName;
+  }
+
+  public Class<?> getBeanClass() {
+    return beanClass;
+  }
+
+  /**
+   * Finding the advisors that apply to the bean, i.e. pointcut evaluation.
+   */
+  public long getMatchNanos() {
+    return matchNanos;
+  }
+
+  /**
+   * Generating the proxy, 0 if the bean was not proxied.
+   */
+  public long getProxyNanos() {
+    return proxyNanos;
+  }
+
+  public int getAdvisors() {
+    return advisors;
+  }
+
+  public boolean isProxied() {
+    return proxyNanos > 0;
+  }
+
+  @Override
+  public String toString() {
+    return "ProxyCreationTiming{beanName=" + beanName + ", matchNanos=" + matchNanos + ", proxyNanos=" + proxyNanos
+        + ", advisors=" + advisors + '}';
+  }
+
+}
@@ -0,0 +1,97 @@
+package me.chanjar.aop.cache;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class BoundedCacheTest {
+
+  @Test
+  public void testLeastRecentlyUsedEvicted() {
+    // a single segment, so eviction order is global
+    BoundedCache<String, String> cache = new BoundedCache<>(1, 0, TimeUnit.SECONDS);
+    cache.put("a", "A");
+    cache.put("b", "B");
+    assertNull(cache.get("a"));
+    assertEquals(cache.get("b"), "B");
+
+    BoundedCache<Integer, Integer> lru = new BoundedCache<>(1000, 0, TimeUnit.SECONDS);
+    for (int i = 0; i < 2000; i++) {
+      lru.put(i, i);
+    }
+    assertEquals(lru.size(), 1000);
+    assertEquals(lru.stats().getEvictions(), 1000);
+  }
+
+  @Test
+  public void testRecentlyReadEntriesSurvive() {
+    BoundedCache<Integer, Integer> cache = new BoundedCache<>(1000, 0, TimeUnit.SECONDS);
+    for (int i = 0; i < 1000; i++) {
+      cache.put(i, i);
+    }
+    for (int i = 0; i < 500; i++) {
+      cache.get(i);
+    }
+    for (int i = 1000; i < 1250; i++) {
+      cache.put(i, i);
+    }
+
+    int read = 0;
+    int unread = 0;
+    for (int i = 0; i < 500; i++) {
+      read += cache.get(i) != null ? 1 : 0;
+      unread += cache.get(i + 500) != null ? 1 : 0;
+    }
+    // eviction is sampled, so a few read entries may go in place of unread ones
+    assertTrue(read > 475, read + " read entries left");
+    assertEquals(read + unread, 750);
+  }
+
+  @Test
+  public void testExpiry() {
+    AtomicLong now = new AtomicLong();
+    BoundedCache<String, String> cache = new BoundedCache<>(10, 1, TimeUnit.SECONDS, now::get);
+    cache.put("a", "A");
+    assertEquals(cache.get("a"), "A");
+
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertNull(cache.get("a"));
+
+    CacheStats stats = cache.stats();
+    assertEquals(stats.getHits(), 1);
+    assertEquals(stats.getMisses(), 1);
+    assertEquals(stats.getExpirations(), 1);
+    assertEquals(stats.getSize(), 0);
+  }
+
+  @Test
+  public void testConcurrentCallers() throws Exception {
+    BoundedCache<Integer, Integer> cache = new BoundedCache<>(512, 0, TimeUnit.SECONDS);
+    Thread[] threads = new Thread[8];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 100000; i++) {
+          int key = i % 1024;
+          Integer value = cache.get(key);
+          if (value == null) {
+            cache.put(key, key * 2);
+          } else {
+            assertEquals(value.intValue(), key * 2);
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(cache.size(), 512);
+    assertEquals(cache.stats().getHits() + cache.stats().getMisses(), 800000);
+  }
+
+}
@@ -0,0 +1,55 @@
+package me.chanjar.aop.ex4;
+
+import me.chanjar.aop.aspect.TimedAspect;
+import me.chanjar.aop.config.AopConfig;
+import me.chanjar.aop.metrics.HistogramSnapshot;
+import me.chanjar.aop.metrics.PercentileReporter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+@ContextConfiguration(classes = { AopConfig.class, TimedFoo.class })
+public class TimedAspectTest extends AbstractTestNGSpringContextTests {
+
+  @Autowired
+  private TimedFoo timedFoo;
+
+  @Autowired
+  private TimedAspect timedAspect;
+
+  @Test
+  public void testLatencyRecorded() throws Exception {
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(timedFoo.fast(i), i + 1);
+    }
+    assertEquals(timedFoo.fast(1L), 2L);
+    for (int i = 0; i < 3; i++) {
+      timedFoo.slow();
+    }
+    try {
+      timedFoo.failing();
+      fail();
+    } catch (IllegalStateException e) {
+      // recorded all the same
+    }
+
+    Map<String, HistogramSnapshot> snapshots = timedAspect.getSnapshots();
+    assertEquals(snapshots.get("me.chanjar.aop.ex4.TimedFoo.fast(int)").getCount(), 1000);
+    assertEquals(snapshots.get("me.chanjar.aop.ex4.TimedFoo.fast(long)").getCount(), 1);
+    assertEquals(snapshots.get("foo.failing").getCount(), 1);
+
+    HistogramSnapshot slow = snapshots.get("foo.slow");
+    assertEquals(slow.getCount(), 3);
+    assertTrue(slow.getValueAtPercentile(50) >= TimeUnit.MILLISECONDS.toNanos(5));
+    assertTrue(PercentileReporter.format(slow).startsWith("foo.slow count=3 "));
+  }
+
+}
@@ -0,0 +1,29 @@
+package me.chanjar.aop.ex4;
+
+import me.chanjar.aop.annotation.Timed;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TimedFoo {
+
+  @Timed
+  public int fast(int value) {
+    return value + 1;
+  }
+
+  @Timed
+  public long fast(long value) {
+    return value + 1;
+  }
+
+  @Timed("foo.slow")
+  public void slow() throws InterruptedException {
+    Thread.sleep(5);
+  }
+
+  @Timed("foo.failing")
+  public void failing() {
+    throw new IllegalStateException("failing");
+  }
+
+}
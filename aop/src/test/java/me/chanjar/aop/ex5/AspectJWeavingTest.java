@@ -0,0 +1,71 @@
+package me.chanjar.aop.ex5;
+
+import me.chanjar.aop.aspect.BulkheadAspect;
+import me.chanjar.aop.aspect.CoalesceAspect;
+import me.chanjar.aop.aspect.FooAspect;
+import me.chanjar.aop.aspect.MemoizeAspect;
+import me.chanjar.aop.aspect.TimedAspect;
+import me.chanjar.aop.config.AspectJWeavingConfig;
+import me.chanjar.aop.service.FooService;
+import me.chanjar.aop.service.FooServiceImpl;
+import org.aspectj.lang.Aspects;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+
+/**
+ * Only runs with {@code mvn -Paspectj-ctw test}.
+ */
+@ActiveProfiles("aspectj-weaving")
+@ContextConfiguration(classes = AspectJWeavingConfig.class)
+@Test(groups = "aspectj-ctw")
+public class AspectJWeavingTest extends AbstractTestNGSpringContextTests {
+
+  @Autowired
+  private FooService fooService;
+
+  @Autowired
+  private FooAspect fooAspect;
+
+  @Autowired
+  private ApplicationContext context;
+
+  public void testFooService() {
+
+    assertFalse(AopUtils.isAopProxy(fooService));
+    assertEquals(fooService.getClass(), FooServiceImpl.class);
+    assertSame(fooAspect, Aspects.aspectOf(FooAspect.class));
+
+    // same result as through the CGLIB proxy in SpringAop_1_Test
+    assertEquals(fooService.incrementAndGet(), 0);
+    assertEquals(fooService.incrementAndGet(), 0);
+
+  }
+
+  public void testAdviceAppliesWithoutSpring() {
+
+    assertEquals(new FooServiceImpl().incrementAndGet(), 0);
+
+    // self-invocation bypasses a proxy, but not woven code
+    assertEquals(new SelfInvokingFooService().incrementTwiceAndGet(), 0);
+
+  }
+
+  public void testAspectBeansAreWovenSingletons() {
+
+    for (Class<?> aspect : new Class<?>[] { FooAspect.class, TimedAspect.class, MemoizeAspect.class,
+        CoalesceAspect.class, BulkheadAspect.class }) {
+      assertSame(context.getBean(aspect), Aspects.aspectOf(aspect));
+    }
+
+  }
+
+}
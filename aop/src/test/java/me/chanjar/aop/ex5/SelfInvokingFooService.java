@@ -0,0 +1,12 @@
+package me.chanjar.aop.ex5;
+
+import me.chanjar.aop.service.FooServiceImpl;
+
+public class SelfInvokingFooService extends FooServiceImpl {
+
+  public int incrementTwiceAndGet() {
+    incrementAndGet();
+    return incrementAndGet();
+  }
+
+}
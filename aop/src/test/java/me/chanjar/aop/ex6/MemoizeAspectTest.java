@@ -0,0 +1,45 @@
+package me.chanjar.aop.ex6;
+
+import me.chanjar.aop.aspect.MemoizeAspect;
+import me.chanjar.aop.cache.CacheStats;
+import me.chanjar.aop.config.AopConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+@ContextConfiguration(classes = { AopConfig.class, MemoizedFoo.class })
+public class MemoizeAspectTest extends AbstractTestNGSpringContextTests {
+
+  @Autowired
+  private MemoizedFoo memoizedFoo;
+
+  @Autowired
+  private MemoizeAspect memoizeAspect;
+
+  @Test
+  public void testResultsCachedByArguments() {
+
+    assertEquals(memoizedFoo.describe("a", new int[] { 1, 2 }), "a2");
+    assertEquals(memoizedFoo.describe("a", new int[] { 1, 2 }), "a2");
+    assertEquals(memoizedFoo.getInvocations(), 1);
+
+    assertEquals(memoizedFoo.describe("a", new int[] { 1 }), "a1");
+    assertEquals(memoizedFoo.describe("b", new int[] { 1 }), "b1");
+    assertEquals(memoizedFoo.getInvocations(), 3);
+
+    assertNull(memoizedFoo.nothing("x"));
+    assertNull(memoizedFoo.nothing("x"));
+    assertEquals(memoizedFoo.getInvocations(), 4);
+
+    CacheStats stats = memoizeAspect.getStats().get("me.chanjar.aop.ex6.MemoizedFoo.describe(java.lang.String,int[])");
+    assertEquals(stats.getHits(), 1);
+    assertEquals(stats.getMisses(), 3);
+    assertEquals(stats.getEvictions(), 2);
+
+  }
+
+}
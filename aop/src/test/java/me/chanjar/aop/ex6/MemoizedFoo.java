@@ -0,0 +1,29 @@
+package me.chanjar.aop.ex6;
+
+import me.chanjar.aop.annotation.Memoize;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class MemoizedFoo {
+
+  private final AtomicInteger invocations = new AtomicInteger();
+
+  @Memoize(maxSize = 1)
+  public String describe(String name, int[] values) {
+    invocations.incrementAndGet();
+    return name + values.length;
+  }
+
+  @Memoize
+  public String nothing(String name) {
+    invocations.incrementAndGet();
+    return null;
+  }
+
+  public int getInvocations() {
+    return invocations.get();
+  }
+
+}
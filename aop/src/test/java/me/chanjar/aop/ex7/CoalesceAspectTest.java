@@ -0,0 +1,184 @@
+package me.chanjar.aop.ex7;
+
+import me.chanjar.aop.aspect.CoalesceAspect;
+import me.chanjar.aop.aspect.CoalesceTimeoutException;
+import me.chanjar.aop.config.AopConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+@ContextConfiguration(classes = { AopConfig.class, CoalescedFoo.class })
+public class CoalesceAspectTest extends AbstractTestNGSpringContextTests {
+
+  private static final int CALLERS = 64;
+
+  @Autowired
+  private CoalescedFoo coalescedFoo;
+
+  @Autowired
+  private CoalesceAspect coalesceAspect;
+
+  @Test
+  public void testConcurrentCallsShareOneExecution() throws Exception {
+    List<Future<String>> results = callConcurrently("key");
+
+    for (Future<String> result : results) {
+      assertEquals(result.get(), "KEY");
+    }
+    assertEquals(coalescedFoo.getInvocations(), 1);
+    assertEquals(coalesceAspect.getInFlightCount(), 0);
+
+    // not in flight any more, runs again
+    assertEquals(coalescedFoo.load("key"), "KEY");
+    assertEquals(coalescedFoo.getInvocations(), 2);
+  }
+
+  @Test(dependsOnMethods = "testConcurrentCallsShareOneExecution")
+  public void testExceptionSharedByAllCallers() throws Exception {
+    int invocations = coalescedFoo.getInvocations();
+    List<Future<String>> results = callConcurrently("bad-key");
+
+    Throwable first = null;
+    for (Future<String> result : results) {
+      try {
+        result.get();
+        fail();
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof IllegalArgumentException);
+        if (first == null) {
+          first = e.getCause();
+        }
+        assertSame(e.getCause(), first);
+      }
+    }
+    assertEquals(coalescedFoo.getInvocations(), invocations + 1);
+  }
+
+  @Test(dependsOnMethods = "testExceptionSharedByAllCallers", timeOut = 10000)
+  public void testReentrantCallRunsItself() throws Exception {
+    int invocations = coalescedFoo.getInvocations();
+
+    assertEquals(coalescedFoo.loadReentrant("key"), "KEY");
+    assertEquals(coalescedFoo.getInvocations(), invocations + 1);
+    assertEquals(coalesceAspect.getInFlightCount(), 0);
+  }
+
+  @Test(dependsOnMethods = "testReentrantCallRunsItself")
+  public void testWaitTimesOut() throws Exception {
+    coalescedFoo.hold();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<String> running = executor.submit(() -> coalescedFoo.loadImpatiently("key"));
+      awaitInFlight();
+
+      try {
+        coalescedFoo.loadImpatiently("key");
+        fail();
+      } catch (CoalesceTimeoutException e) {
+        // the running call is not affected
+        assertTrue(e.getMessage().startsWith(CoalescedFoo.class.getName() + ".loadImpatiently(java.lang.String) "),
+            e.getMessage());
+      }
+      coalescedFoo.release();
+      assertEquals(running.get(10, TimeUnit.SECONDS), "KEY");
+    } finally {
+      coalescedFoo.release();
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(dependsOnMethods = "testWaitTimesOut")
+  public void testInterruptedWait() throws Exception {
+    coalescedFoo.hold();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<String> running = executor.submit(() -> coalescedFoo.load("key"));
+      awaitInFlight();
+
+      long coalescedBefore = coalesceAspect.getCoalescedCount();
+      AtomicReference<Throwable> failure = new AtomicReference<>();
+      AtomicBoolean interrupted = new AtomicBoolean();
+      Thread waiter = new Thread(() -> {
+        try {
+          coalescedFoo.load("key");
+        } catch (Throwable e) {
+          failure.set(e);
+          interrupted.set(Thread.currentThread().isInterrupted());
+        }
+      });
+      waiter.start();
+      while (coalesceAspect.getCoalescedCount() == coalescedBefore) {
+        Thread.sleep(1);
+      }
+      waiter.interrupt();
+      waiter.join(TimeUnit.SECONDS.toMillis(10));
+
+      assertTrue(failure.get() instanceof IllegalStateException);
+      assertTrue(failure.get().getCause() instanceof InterruptedException);
+      assertTrue(interrupted.get());
+
+      coalescedFoo.release();
+      assertEquals(running.get(10, TimeUnit.SECONDS), "KEY");
+    } finally {
+      coalescedFoo.release();
+      executor.shutdownNow();
+    }
+  }
+
+  private void awaitInFlight() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (coalesceAspect.getInFlightCount() == 0) {
+      assertTrue(System.nanoTime() < deadline, "call did not start");
+      Thread.sleep(1);
+    }
+  }
+
+  private List<Future<String>> callConcurrently(String key) throws Exception {
+    long coalescedBefore = coalesceAspect.getCoalescedCount();
+    coalescedFoo.hold();
+
+    ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < CALLERS; i++) {
+        results.add(executor.submit(() -> coalescedFoo.load(key)));
+      }
+
+      // every caller but the one running the method has to be waiting before it may finish
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (coalesceAspect.getCoalescedCount() - coalescedBefore < CALLERS - 1) {
+        assertTrue(System.nanoTime() < deadline, "callers were not coalesced");
+        Thread.sleep(1);
+      }
+      coalescedFoo.release();
+
+      for (Future<String> result : results) {
+        try {
+          result.get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+          // checked by the caller
+        }
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+}
@@ -0,0 +1,70 @@
+package me.chanjar.aop.ex7;
+
+import me.chanjar.aop.annotation.Coalesce;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class CoalescedFoo {
+
+  private final AtomicInteger invocations = new AtomicInteger();
+
+  private final AtomicBoolean reentered = new AtomicBoolean();
+
+  private volatile CountDownLatch release = new CountDownLatch(0);
+
+  @Autowired
+  private CoalescedFoo self;
+
+  @Coalesce
+  public String load(String key) throws InterruptedException {
+    return doLoad(key);
+  }
+
+  @Coalesce(timeout = 50, timeUnit = TimeUnit.MILLISECONDS)
+  public String loadImpatiently(String key) throws InterruptedException {
+    return doLoad(key);
+  }
+
+  /**
+   * Calls itself through the proxy once, with the same key.
+   */
+  @Coalesce
+  public String loadReentrant(String key) throws InterruptedException {
+    if (reentered.compareAndSet(false, true)) {
+      try {
+        return self.loadReentrant(key);
+      } finally {
+        reentered.set(false);
+      }
+    }
+    return doLoad(key);
+  }
+
+  public void hold() {
+    release = new CountDownLatch(1);
+  }
+
+  public void release() {
+    release.countDown();
+  }
+
+  public int getInvocations() {
+    return invocations.get();
+  }
+
+  private String doLoad(String key) throws InterruptedException {
+    invocations.incrementAndGet();
+    release.await();
+    if (key.startsWith("bad")) {
+      throw new IllegalArgumentException(key);
+    }
+    return key.toUpperCase();
+  }
+
+}
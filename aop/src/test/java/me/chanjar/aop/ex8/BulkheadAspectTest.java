@@ -0,0 +1,77 @@
+package me.chanjar.aop.ex8;
+
+import me.chanjar.aop.aspect.BulkheadAspect;
+import me.chanjar.aop.config.AopConfig;
+import me.chanjar.aop.limit.BulkheadFullException;
+import me.chanjar.aop.limit.LimitStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+@ContextConfiguration(classes = { AopConfig.class, BulkheadFoo.class })
+public class BulkheadAspectTest extends AbstractTestNGSpringContextTests {
+
+  @Autowired
+  private BulkheadFoo bulkheadFoo;
+
+  @Autowired
+  private BulkheadAspect bulkheadAspect;
+
+  @Test
+  public void testFailFastWhenFull() throws Exception {
+    assertEquals(bulkheadFoo.call("warm-up"), "warm-up");
+
+    bulkheadFoo.hold();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        String value = String.valueOf(i);
+        results.add(executor.submit(() -> bulkheadFoo.call(value)));
+      }
+
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (stats().getInFlight() < 4) {
+        assertTrue(System.nanoTime() < deadline, "callers did not enter");
+        Thread.sleep(1);
+      }
+
+      try {
+        bulkheadFoo.call("over");
+        fail();
+      } catch (BulkheadFullException e) {
+        assertEquals(e.getLimit(), 4);
+      }
+
+      bulkheadFoo.release();
+      for (int i = 0; i < 4; i++) {
+        assertEquals(results.get(i).get(10, TimeUnit.SECONDS), String.valueOf(i));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    LimitStats stats = stats();
+    assertEquals(stats.getAccepted(), 5);
+    assertEquals(stats.getRejected(), 1);
+    assertEquals(stats.getInFlight(), 0);
+    assertEquals(bulkheadFoo.call("after"), "after");
+  }
+
+  private LimitStats stats() {
+    return bulkheadAspect.getStats().get("me.chanjar.aop.ex8.BulkheadFoo.call(java.lang.String)");
+  }
+
+}
@@ -0,0 +1,28 @@
+package me.chanjar.aop.ex8;
+
+import me.chanjar.aop.annotation.Bulkhead;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class BulkheadFoo {
+
+  private volatile CountDownLatch release = new CountDownLatch(0);
+
+  @Bulkhead(initialLimit = 4, maxLimit = 4, latencyThreshold = 10, timeUnit = TimeUnit.SECONDS)
+  public String call(String value) throws InterruptedException {
+    release.await();
+    return value;
+  }
+
+  public void hold() {
+    release = new CountDownLatch(1);
+  }
+
+  public void release() {
+    release.countDown();
+  }
+
+}
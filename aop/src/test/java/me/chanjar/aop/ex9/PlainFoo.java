@@ -0,0 +1,12 @@
+package me.chanjar.aop.ex9;
+
+import org.springframework.stereotype.Component;
+
+@Component
+public class PlainFoo {
+
+  public int foo() {
+    return 1;
+  }
+
+}
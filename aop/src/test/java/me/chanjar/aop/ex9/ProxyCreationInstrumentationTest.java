@@ -0,0 +1,142 @@
+package me.chanjar.aop.ex9;
+
+import me.chanjar.aop.config.AopConfig;
+import me.chanjar.aop.ex4.TimedFoo;
+import me.chanjar.aop.proxy.InstrumentedAspectJAutoProxyCreator;
+import me.chanjar.aop.proxy.InstrumentedAutoProxyCreatorInstaller;
+import me.chanjar.aop.proxy.PointcutMatchCache;
+import me.chanjar.aop.proxy.ProxyCreationTiming;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.aop.config.AopConfigUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class ProxyCreationInstrumentationTest {
+
+  @BeforeMethod
+  public void clearMatchCache() {
+    PointcutMatchCache.shared().clear();
+  }
+
+  @Test
+  public void testTimingsAndCachedMatching() {
+    try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+      context.register(AopConfig.class, InstrumentedAutoProxyCreatorInstaller.class);
+      context.registerBeanDefinition("otherTimedFoo", new RootBeanDefinition(TimedFoo.class));
+      context.registerBeanDefinition("otherPlainFoo", new RootBeanDefinition(PlainFoo.class));
+      context.refresh();
+
+      Map<String, ProxyCreationTiming> timings = creatorOf(context).getTimings();
+
+      ProxyCreationTiming timedFoo = timings.get("timedFoo");
+      assertTrue(timedFoo.isProxied());
+      assertEquals(timedFoo.getBeanClass(), TimedFoo.class);
+      assertTrue(timedFoo.getAdvisors() > 0);
+
+      ProxyCreationTiming plainFoo = timings.get("plainFoo");
+      assertFalse(plainFoo.isProxied());
+      assertEquals(plainFoo.getAdvisors(), 0);
+      assertTrue(plainFoo.getMatchNanos() > 0);
+
+      PointcutMatchCache cache = creatorOf(context).getMatchCache();
+      assertTrue(cache.getMisses() > 0);
+      assertEquals(cache.size(), cache.getMisses());
+      assertTrue(cache.getHits() >= 2);
+      assertTrue(AopUtils.isAopProxy(context.getBean("otherTimedFoo")));
+      assertFalse(AopUtils.isAopProxy(context.getBean("otherPlainFoo")));
+    }
+  }
+
+  @Test
+  public void testMatchesSharedAcrossContexts() {
+    PointcutMatchCache cache = PointcutMatchCache.shared();
+    try (AnnotationConfigApplicationContext context =
+             new AnnotationConfigApplicationContext(AopConfig.class, InstrumentedAutoProxyCreatorInstaller.class)) {
+      assertSame(creatorOf(context).getMatchCache(), cache);
+    }
+    long misses = cache.getMisses();
+    long hits = cache.getHits();
+    assertTrue(misses > 0);
+
+    try (AnnotationConfigApplicationContext context =
+             new AnnotationConfigApplicationContext(AopConfig.class, InstrumentedAutoProxyCreatorInstaller.class)) {
+      assertEquals(cache.getMisses(), misses);
+      assertTrue(cache.getHits() >= hits + misses, cache.getHits() + " hits");
+      assertTrue(AopUtils.isAopProxy(context.getBean(TimedFoo.class)));
+      assertFalse(AopUtils.isAopProxy(context.getBean(PlainFoo.class)));
+    }
+  }
+
+  @Test
+  public void testBeanNamePointcutNotCached() {
+    try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+      context.register(BeanNameConfig.class, InstrumentedAutoProxyCreatorInstaller.class);
+      context.registerBeanDefinition("firstFoo", new RootBeanDefinition(PlainFoo.class));
+      context.registerBeanDefinition("secondFoo", new RootBeanDefinition(PlainFoo.class));
+      context.refresh();
+
+      assertTrue(AopUtils.isAopProxy(context.getBean("firstFoo")));
+      assertFalse(AopUtils.isAopProxy(context.getBean("secondFoo")));
+      assertEquals(creatorOf(context).getMatchCache().size(), 0);
+    }
+  }
+
+  @Test
+  public void testCachingDisabled() {
+    try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+      RootBeanDefinition installer = new RootBeanDefinition(InstrumentedAutoProxyCreatorInstaller.class);
+      installer.getPropertyValues().add("cacheMatches", false);
+      context.register(AopConfig.class);
+      context.registerBeanDefinition("installer", installer);
+      context.refresh();
+
+      assertNull(creatorOf(context).getMatchCache());
+      assertTrue(AopUtils.isAopProxy(context.getBean(TimedFoo.class)));
+    }
+  }
+
+  private static InstrumentedAspectJAutoProxyCreator creatorOf(AnnotationConfigApplicationContext context) {
+    return context.getBean(AopConfigUtils.AUTO_PROXY_CREATOR_BEAN_NAME, InstrumentedAspectJAutoProxyCreator.class);
+  }
+
+  @EnableAspectJAutoProxy
+  public static class BeanNameConfig {
+
+    @Bean
+    public FirstFooAspect firstFooAspect() {
+      return new FirstFooAspect();
+    }
+
+  }
+
+  @Aspect
+  public static class FirstFooAspect {
+
+    @Pointcut("bean(first*)")
+    public void firstBeans() {
+    }
+
+    @Around("execution(* foo()) && firstBeans()")
+    public Object around(ProceedingJoinPoint pjp) throws Throwable {
+      return pjp.proceed();
+    }
+
+  }
+
+}
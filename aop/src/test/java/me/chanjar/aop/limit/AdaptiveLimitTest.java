@@ -0,0 +1,81 @@
+package me.chanjar.aop.limit;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+
+public class AdaptiveLimitTest {
+
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+  @Test
+  public void testRejectsOverLimit() {
+    AdaptiveLimit limit = new AdaptiveLimit(2, 1, 2, 100, TimeUnit.MILLISECONDS);
+    assertEquals(limit.tryAcquire(), 1);
+    assertEquals(limit.tryAcquire(), 2);
+    assertEquals(limit.tryAcquire(), 0);
+
+    limit.release(2, FAST);
+    assertEquals(limit.tryAcquire(), 2);
+
+    LimitStats stats = limit.stats();
+    assertEquals(stats.getAccepted(), 3);
+    assertEquals(stats.getRejected(), 1);
+    assertEquals(stats.getInFlight(), 2);
+
+    limit.release(1, FAST);
+    limit.release(2, FAST);
+    assertEquals(limit.stats().getInFlight(), 0);
+  }
+
+  @Test
+  public void testAdditiveIncreaseMultiplicativeDecrease() {
+    AdaptiveLimit limit = new AdaptiveLimit(10, 2, 12, 100, TimeUnit.MILLISECONDS);
+
+    // fast but mostly idle, nothing to learn
+    limit.release(limit.tryAcquire(), FAST);
+    assertEquals(limit.getLimit(), 10);
+
+    int[] permits = acquire(limit, 7);
+    for (int i = 4; i < 7; i++) {
+      limit.release(permits[i], FAST);
+    }
+    assertEquals(limit.getLimit(), 12);
+    for (int i = 0; i < 4; i++) {
+      limit.release(permits[i], FAST);
+    }
+    assertEquals(limit.getLimit(), 12);
+    assertEquals(limit.stats().getInFlight(), 0);
+
+    permits = acquire(limit, 12);
+    limit.release(permits[11], SLOW);
+    assertEquals(limit.getLimit(), 10);
+    for (int i = 0; i < 11; i++) {
+      limit.release(permits[i], SLOW);
+    }
+    for (int i = 0; i < 100; i++) {
+      limit.release(limit.tryAcquire(), SLOW);
+    }
+    assertEquals(limit.getLimit(), 2);
+    assertEquals(limit.stats().getInFlight(), 0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidLimits() {
+    new AdaptiveLimit(5, 1, 4, 100, TimeUnit.MILLISECONDS);
+  }
+
+  private static int[] acquire(AdaptiveLimit limit, int count) {
+    int[] permits = new int[count];
+    for (int i = 0; i < count; i++) {
+      permits[i] = limit.tryAcquire();
+      assertEquals(permits[i], i + 1);
+    }
+    return permits;
+  }
+
+}
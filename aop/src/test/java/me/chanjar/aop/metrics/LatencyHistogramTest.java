@@ -0,0 +1,48 @@
+package me.chanjar.aop.metrics;
+
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testBucketsCoverEveryValue() {
+    assertEquals(LatencyHistogram.bucketIndex(0), 0);
+    assertEquals(LatencyHistogram.bucketIndex(63), 63);
+    assertEquals(LatencyHistogram.bucketIndex(Long.MAX_VALUE), LatencyHistogram.BUCKETS - 1);
+    assertEquals(LatencyHistogram.highestValue(LatencyHistogram.BUCKETS - 1), Long.MAX_VALUE);
+
+    Random random = new Random(7);
+    for (int i = 0; i < 100000; i++) {
+      long value = random.nextLong() >>> (1 + random.nextInt(63));
+      int index = LatencyHistogram.bucketIndex(value);
+      long highest = LatencyHistogram.highestValue(index);
+      assertTrue(highest >= value);
+      assertTrue(highest - value <= value / LatencyHistogram.SUB_BUCKETS, value + " -> " + highest);
+      if (index > 0) {
+        assertTrue(LatencyHistogram.highestValue(index - 1) < value);
+      }
+    }
+  }
+
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram("test");
+    for (long value = 1; value <= 10000; value++) {
+      histogram.record(value * 1000);
+    }
+
+    HistogramSnapshot snapshot = histogram.snapshot();
+    assertEquals(snapshot.getCount(), 10000);
+    assertEquals(snapshot.getMax(), 10000000);
+    assertEquals(snapshot.getValueAtPercentile(50), 5000000, 5000000 / 32.0);
+    assertEquals(snapshot.getValueAtPercentile(99), 9900000, 9900000 / 32.0);
+    assertEquals(snapshot.getValueAtPercentile(100), 10000000);
+    assertEquals(snapshot.getMean(), 5000500, 5000500 / 32.0);
+  }
+
+}
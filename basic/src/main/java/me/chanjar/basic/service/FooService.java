@@ -1,9 +1,39 @@
 package me.chanjar.basic.service;
 
+import java.time.Duration;
+
 public interface FooService {
 
   void plusCount();
 
+  /**
+   * Adds a whole batch of events at once.
+   *
+   * @param delta must not be negative
+   */
+  void plusCount(int delta);
+
+  /**
+   * Counts beyond {@link Integer#MAX_VALUE} are reported as {@link Integer#MAX_VALUE}.
+   */
   int getCount();
 
+  /**
+   * Like {@link #getCount()}, but exact even while other threads are calling {@link #plusCount()}.
+   */
+  int getExactCount();
+
+  /**
+   * Returns the count and resets it to zero. A {@link #plusCount()} racing with the reset is counted either in the
+   * returned value or after the reset, never lost, but the read and the reset are not one atomic step. At most
+   * {@link Integer#MAX_VALUE} is returned, anything above stays in the count.
+   */
+  int getAndReset();
+
+  /**
+   * Events per second counted by {@link #plusCount()} during the last {@code window}, independent of resets.
+   * {@link Double#NaN} if the implementation does not track rates.
+   */
+  double getRate(Duration window);
+
 }
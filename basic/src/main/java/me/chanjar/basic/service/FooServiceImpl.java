@@ -1,20 +1,86 @@
 package me.chanjar.basic.service;
 
+import me.chanjar.basic.service.counter.Counter;
+import me.chanjar.basic.service.counter.CounterMode;
+import me.chanjar.basic.service.counter.WindowedCounter;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 @Component
 public class FooServiceImpl implements FooService {
 
-  private int count = 0;
+  private final Counter counter;
+
+  private final WindowedCounter rates;
+
+  public FooServiceImpl() {
+    this(CounterMode.STRIPED);
+  }
+
+  public FooServiceImpl(CounterMode mode) {
+    this(mode.newCounter());
+  }
+
+  public FooServiceImpl(Counter counter) {
+    this(counter, null);
+  }
+
+  /**
+   * @param rates tracks {@link #getRate(Duration)}, {@code null} to keep {@link #plusCount()} free of the extra
+   *              clock read and shared write
+   */
+  public FooServiceImpl(Counter counter, WindowedCounter rates) {
+    this.counter = counter;
+    this.rates = rates;
+  }
 
   @Override
   public void plusCount() {
-    this.count++;
+    counter.increment();
+    if (rates != null) {
+      rates.increment();
+    }
+  }
+
+  @Override
+  public void plusCount(int delta) {
+    if (delta < 0) {
+      throw new IllegalArgumentException("delta must not be negative: " + delta);
+    }
+    counter.add(delta);
+    if (rates != null) {
+      rates.add(delta);
+    }
   }
 
   @Override
   public int getCount() {
-    return count;
+    return saturate(counter.sum());
+  }
+
+  @Override
+  public int getExactCount() {
+    return saturate(counter.snapshot());
+  }
+
+  @Override
+  public int getAndReset() {
+    long count = counter.sumThenReset();
+    if (count > Integer.MAX_VALUE) {
+      counter.add(count - Integer.MAX_VALUE);
+      return Integer.MAX_VALUE;
+    }
+    return (int) count;
+  }
+
+  @Override
+  public double getRate(Duration window) {
+    return rates == null ? Double.NaN : rates.getRate(window);
+  }
+
+  private static int saturate(long count) {
+    return (int) Math.min(count, Integer.MAX_VALUE);
   }
 
 }
@@ -0,0 +1,8 @@
+package me.chanjar.basic.service;
+
+@FunctionalInterface
+public interface KeyedCountConsumer {
+
+  void accept(String key, long count);
+
+}
@@ -0,0 +1,22 @@
+package me.chanjar.basic.service;
+
+/**
+ * One counter per key, instead of one {@link FooService} per key.
+ */
+public interface KeyedFooService {
+
+  void plusCount(String key);
+
+  /**
+   * @param delta must not be negative
+   */
+  void plusCount(String key, int delta);
+
+  /**
+   * @return the key's count, 0 for a key that was never counted
+   */
+  long getCount(String key);
+
+  void forEach(KeyedCountConsumer consumer);
+
+}
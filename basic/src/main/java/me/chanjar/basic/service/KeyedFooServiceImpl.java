@@ -0,0 +1,34 @@
+package me.chanjar.basic.service;
+
+import me.chanjar.basic.service.counter.ConcurrentStringLongMap;
+import org.springframework.stereotype.Component;
+
+@Component
+public class KeyedFooServiceImpl implements KeyedFooService {
+
+  private final ConcurrentStringLongMap counts = new ConcurrentStringLongMap();
+
+  @Override
+  public void plusCount(String key) {
+    counts.addAndGet(key, 1);
+  }
+
+  @Override
+  public void plusCount(String key, int delta) {
+    if (delta < 0) {
+      throw new IllegalArgumentException("delta must not be negative: " + delta);
+    }
+    counts.addAndGet(key, delta);
+  }
+
+  @Override
+  public long getCount(String key) {
+    return counts.get(key);
+  }
+
+  @Override
+  public void forEach(KeyedCountConsumer consumer) {
+    counts.forEach(consumer::accept);
+  }
+
+}
@@ -0,0 +1,29 @@
+package me.chanjar.basic.service.counter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AtomicCounter implements Counter {
+
+  private final AtomicLong count = new AtomicLong();
+
+  @Override
+  public void add(long delta) {
+    count.addAndGet(delta);
+  }
+
+  @Override
+  public long sum() {
+    return count.get();
+  }
+
+  @Override
+  public long snapshot() {
+    return count.get();
+  }
+
+  @Override
+  public long sumThenReset() {
+    return count.getAndSet(0);
+  }
+
+}
@@ -0,0 +1,212 @@
+package me.chanjar.basic.service.counter;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Accumulates increments in a per-thread batch and adds the batch to a shared target counter once it reaches
+ * {@code threshold} or is older than {@code maxDelay}, so hot callers touch shared memory once per batch. The age
+ * is only checked every {@link #CLOCK_CHECK_INTERVAL} increments of the owner, which keeps {@link System#nanoTime()}
+ * off the per-increment path.
+ * <p>
+ * Pending batches are included in {@link #sum()} and {@link #snapshot()}. {@link #sumThenReset()} first drains
+ * every registered batch, including those of idle or dead threads, into the target. A flush publishes to the
+ * target before taking the amount out of the batch and is bracketed by the batch's flush sequence, so
+ * {@link #snapshot()} can tell when a flush overlapped its read.
+ */
+public class BatchingCounter implements Counter {
+
+  public static final int DEFAULT_THRESHOLD = 128;
+
+  public static final long DEFAULT_MAX_DELAY_MILLIS = 10;
+
+  static final int CLOCK_CHECK_INTERVAL = 16;
+
+  private static final int SNAPSHOT_RETRIES = 16;
+
+  /**
+   * Slots between a batch's value and either end of its array, see {@link StripedCounter}.
+   */
+  private static final int PAD = 16;
+
+  private final Counter target;
+
+  private final long threshold;
+
+  private final long maxDelayNanos;
+
+  private final Set<Batch> batches = ConcurrentHashMap.newKeySet();
+
+  private final ThreadLocal<Batch> localBatch = ThreadLocal.withInitial(this::newBatch);
+
+  public BatchingCounter(Counter target) {
+    this(target, DEFAULT_THRESHOLD, DEFAULT_MAX_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  public BatchingCounter(Counter target, long threshold, long maxDelay, TimeUnit unit) {
+    if (threshold < 1) {
+      throw new IllegalArgumentException("threshold must be positive: " + threshold);
+    }
+    this.target = target;
+    this.threshold = threshold;
+    this.maxDelayNanos = unit.toNanos(maxDelay);
+  }
+
+  @Override
+  public void add(long delta) {
+    Batch batch = localBatch.get();
+    long pending = batch.addAndGet(delta);
+    if (pending >= threshold) {
+      batch.lastFlush = System.nanoTime();
+      flush(batch);
+    } else if (++batch.increments % CLOCK_CHECK_INTERVAL == 0) {
+      long now = System.nanoTime();
+      if (now - batch.lastFlush >= maxDelayNanos) {
+        batch.lastFlush = now;
+        flush(batch);
+      }
+    }
+  }
+
+  @Override
+  public long sum() {
+    flushDeadThreads();
+    long pending = 0;
+    for (Batch batch : batches) {
+      pending += batch.get();
+    }
+    return target.sum() + pending;
+  }
+
+  /**
+   * Double collect over the batches around the target's snapshot: if no batch changed or flushed meanwhile, the
+   * target and the batches were read at one instant. Under sustained increments it gives up after a few tries and
+   * drains the batches instead.
+   */
+  @Override
+  public long snapshot() {
+    flushDeadThreads();
+    for (int attempt = 0; attempt < SNAPSHOT_RETRIES; attempt++) {
+      Batch[] collected = batches.toArray(new Batch[0]);
+      long[] before = collect(collected);
+      if (before == null) {
+        continue;
+      }
+      long sum = target.snapshot();
+      long[] after = collect(collected);
+      if (Arrays.equals(before, after) && batches.size() == collected.length) {
+        for (int i = 0; i < collected.length; i++) {
+          sum += before[2 * i + 1];
+        }
+        return sum;
+      }
+    }
+    drain();
+    return target.snapshot();
+  }
+
+  @Override
+  public long sumThenReset() {
+    flushDeadThreads();
+    drain();
+    return target.sumThenReset();
+  }
+
+  /**
+   * Flush sequence and value of every batch, {@code null} if one is being flushed.
+   */
+  private static long[] collect(Batch[] collected) {
+    long[] values = new long[collected.length * 2];
+    for (int i = 0; i < collected.length; i++) {
+      int sequence = collected[i].flushes.get();
+      if ((sequence & 1) != 0) {
+        return null;
+      }
+      values[2 * i] = sequence;
+      values[2 * i + 1] = collected[i].get();
+    }
+    return values;
+  }
+
+  private void drain() {
+    for (Batch batch : batches) {
+      flush(batch);
+    }
+  }
+
+  private void flush(Batch batch) {
+    synchronized (batch) {
+      long pending = batch.get();
+      if (pending == 0) {
+        return;
+      }
+      batch.flushes.incrementAndGet();
+      target.add(pending);
+      batch.addAndGet(-pending);
+      batch.flushes.incrementAndGet();
+    }
+  }
+
+  private void flushDeadThreads() {
+    for (Iterator<Batch> iterator = batches.iterator(); iterator.hasNext(); ) {
+      Batch batch = iterator.next();
+      Thread owner = batch.owner.get();
+      if (owner == null || !owner.isAlive()) {
+        flush(batch);
+        iterator.remove();
+      }
+    }
+  }
+
+  private Batch newBatch() {
+    Batch batch = new Batch(Thread.currentThread());
+    batches.add(batch);
+    return batch;
+  }
+
+  /**
+   * Incremented by its owner thread, flushed by the owner or by a draining reader. Batches of different threads
+   * are often allocated next to each other, so the value sits {@link #PAD} slots inside its own array.
+   */
+  private static class Batch {
+
+    private final AtomicLongArray value = new AtomicLongArray(2 * PAD + 1);
+
+    private final WeakReference<Thread> owner;
+
+    /**
+     * Odd while a flush is between publishing to the target and taking the amount out of the batch.
+     */
+    private final AtomicInteger flushes = new AtomicInteger();
+
+    /**
+     * Only read and written by the owner.
+     */
+    private long lastFlush = System.nanoTime();
+
+    /**
+     * Only read and written by the owner.
+     */
+    private int increments;
+
+    Batch(Thread owner) {
+      this.owner = new WeakReference<>(owner);
+    }
+
+    long get() {
+      return value.get(PAD);
+    }
+
+    long addAndGet(long delta) {
+      return value.addAndGet(PAD, delta);
+    }
+
+  }
+
+}
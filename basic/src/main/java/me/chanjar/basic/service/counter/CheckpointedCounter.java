@@ -0,0 +1,163 @@
+package me.chanjar.basic.service.counter;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Mirrors a counter into a memory-mapped file so its value survives a restart. Increments go to the delegate
+ * only, the file is written and {@code force()}d by {@link #checkpoint()}, which runs every {@code interval} and
+ * on {@link #close()}. A crash loses at most the increments since the last checkpoint. {@link #sumThenReset()}
+ * checkpoints before it returns, so a drained amount is not counted again after a restart.
+ * <p>
+ * The file has a header and two checkpoint slots used alternately, each with a sequence number and a CRC32, so a
+ * torn write leaves the previous slot intact. Opening the file reads the newest valid slot, nothing is replayed.
+ * <p>
+ * Usage: {@code new FooServiceImpl(new CheckpointedCounter(new StripedCounter(), file, 1, TimeUnit.SECONDS))}.
+ */
+public class CheckpointedCounter implements Counter, Closeable {
+
+  private static final int MAGIC = 0x464f4f43;
+
+  private static final int FORMAT_VERSION = 1;
+
+  private static final int HEADER_SIZE = 16;
+
+  private static final int SLOT_SIZE = 32;
+
+  private static final int FILE_SIZE = HEADER_SIZE + 2 * SLOT_SIZE;
+
+  private final Counter delegate;
+
+  /**
+   * Value recovered from the file, moved into the next reset's result.
+   */
+  private final AtomicLong base;
+
+  private final FileChannel channel;
+
+  private final MappedByteBuffer buffer;
+
+  private final ScheduledExecutorService scheduler;
+
+  private long sequence;
+
+  public CheckpointedCounter(Counter delegate, File file, long interval, TimeUnit unit) throws IOException {
+    this.delegate = delegate;
+    this.channel = FileChannel.open(file.toPath(),
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      boolean created = channel.size() == 0;
+      // mapping would grow a shorter file, so check what is there first
+      if (!created && !hasHeader(channel)) {
+        throw new IOException(file + " is not a counter checkpoint file");
+      }
+      this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+      if (created) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.force();
+      }
+      this.base = new AtomicLong(recover());
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+
+    if (interval > 0) {
+      this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "counter-checkpoint-" + file.getName());
+        thread.setDaemon(true);
+        return thread;
+      });
+      scheduler.scheduleWithFixedDelay(this::checkpoint, interval, interval, unit);
+    } else {
+      this.scheduler = null;
+    }
+  }
+
+  @Override
+  public void add(long delta) {
+    delegate.add(delta);
+  }
+
+  @Override
+  public long sum() {
+    return base.get() + delegate.sum();
+  }
+
+  @Override
+  public long snapshot() {
+    return base.get() + delegate.snapshot();
+  }
+
+  @Override
+  public synchronized long sumThenReset() {
+    long sum = base.getAndSet(0) + delegate.sumThenReset();
+    checkpoint();
+    return sum;
+  }
+
+  public synchronized void checkpoint() {
+    long value = snapshot();
+    sequence++;
+    int offset = HEADER_SIZE + (int) (sequence & 1) * SLOT_SIZE;
+    buffer.putLong(offset, sequence);
+    buffer.putLong(offset + 8, value);
+    buffer.putLong(offset + 16, checksum(sequence, value));
+    buffer.force();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (scheduler != null) {
+      scheduler.shutdown();
+    }
+    try {
+      checkpoint();
+    } finally {
+      channel.close();
+    }
+  }
+
+  private static boolean hasHeader(FileChannel channel) throws IOException {
+    if (channel.size() != FILE_SIZE) {
+      return false;
+    }
+    ByteBuffer header = ByteBuffer.allocate(8);
+    while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+      // read until the header is complete
+    }
+    return header.getInt(0) == MAGIC && header.getInt(4) == FORMAT_VERSION;
+  }
+
+  private long recover() {
+    long value = 0;
+    for (int slot = 0; slot < 2; slot++) {
+      int offset = HEADER_SIZE + slot * SLOT_SIZE;
+      long slotSequence = buffer.getLong(offset);
+      long slotValue = buffer.getLong(offset + 8);
+      if (slotSequence > sequence && buffer.getLong(offset + 16) == checksum(slotSequence, slotValue)) {
+        sequence = slotSequence;
+        value = slotValue;
+      }
+    }
+    return value;
+  }
+
+  private static long checksum(long sequence, long value) {
+    CRC32 crc = new CRC32();
+    crc.update(ByteBuffer.allocate(16).putLong(sequence).putLong(value).array());
+    return crc.getValue();
+  }
+
+}
@@ -0,0 +1,223 @@
+package me.chanjar.basic.service.counter;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Concurrent {@code String -> long} counter map with open addressing (linear probing) and no boxing.
+ * <p>
+ * Keys are split over segments, each holding one table of parallel key/value arrays, about 16 bytes per key at
+ * the default load factor. Adding to an existing key is a single atomic {@code getAndAdd} on its slot, only
+ * inserting a new key takes the segment's lock. A resize marks every old slot {@link #MOVED}, so an add that
+ * raced with it notices and is retried against the new table.
+ * <p>
+ * Values are expected to stay non-negative.
+ */
+public class ConcurrentStringLongMap {
+
+  private static final long MOVED = Long.MIN_VALUE;
+
+  private static final long MOVED_LIMIT = Long.MIN_VALUE / 2;
+
+  private static final int DEFAULT_SEGMENTS = 16;
+
+  private static final int INITIAL_SEGMENT_CAPACITY = 16;
+
+  private final Segment[] segments;
+
+  private final int segmentShift;
+
+  public ConcurrentStringLongMap() {
+    this(DEFAULT_SEGMENTS);
+  }
+
+  public ConcurrentStringLongMap(int concurrencyLevel) {
+    if (concurrencyLevel < 1) {
+      throw new IllegalArgumentException("concurrencyLevel must be positive: " + concurrencyLevel);
+    }
+    int bits = 32 - Integer.numberOfLeadingZeros(concurrencyLevel - 1);
+    this.segments = new Segment[1 << bits];
+    this.segmentShift = 32 - bits;
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = new Segment(INITIAL_SEGMENT_CAPACITY);
+    }
+  }
+
+  public long addAndGet(String key, long delta) {
+    int hash = spread(key.hashCode());
+    Segment segment = segmentFor(hash);
+    while (true) {
+      Table table = segment.table;
+      int slot = table.find(key, hash);
+      if (slot < 0) {
+        return segment.insert(key, hash, delta);
+      }
+      long previous = table.values.getAndAdd(slot, delta);
+      if (previous > MOVED_LIMIT) {
+        return previous + delta;
+      }
+      segment.awaitResize();
+    }
+  }
+
+  /**
+   * @return the key's value, 0 if it has never been added to
+   */
+  public long get(String key) {
+    int hash = spread(key.hashCode());
+    Segment segment = segmentFor(hash);
+    while (true) {
+      Table table = segment.table;
+      int slot = table.find(key, hash);
+      if (slot < 0) {
+        return 0;
+      }
+      long value = table.values.get(slot);
+      if (value > MOVED_LIMIT) {
+        return value;
+      }
+      segment.awaitResize();
+    }
+  }
+
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      size += segment.size;
+    }
+    return size;
+  }
+
+  /**
+   * Weakly consistent: sees every key inserted before the call, values are read while iterating.
+   */
+  public void forEach(EntryConsumer consumer) {
+    for (Segment segment : segments) {
+      Table table = segment.table;
+      for (int i = 0; i < table.keys.length(); i++) {
+        String key = table.keys.get(i);
+        if (key != null) {
+          long value = table.values.get(i);
+          consumer.accept(key, value > MOVED_LIMIT ? value : get(key));
+        }
+      }
+    }
+  }
+
+  private Segment segmentFor(int hash) {
+    return segments[segmentShift == 32 ? 0 : hash >>> segmentShift];
+  }
+
+  /**
+   * murmur3 fmix32, segments use the high bits and table slots the low bits of the result
+   */
+  private static int spread(int h) {
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  @FunctionalInterface
+  public interface EntryConsumer {
+
+    void accept(String key, long value);
+
+  }
+
+  private static final class Segment {
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private volatile Table table;
+
+    private volatile int size;
+
+    Segment(int capacity) {
+      this.table = new Table(capacity);
+    }
+
+    synchronized long insert(String key, int hash, long delta) {
+      Table current = this.table;
+      int slot = current.find(key, hash);
+      if (slot >= 0) {
+        // another thread inserted it first, nobody can resize while we hold the lock
+        return current.values.addAndGet(slot, delta);
+      }
+      if (size + 1 > current.capacity() * LOAD_FACTOR) {
+        current = resize(current);
+      }
+      slot = current.freeSlot(hash);
+      // value before key: whoever finds the key also sees its initial value
+      current.values.set(slot, delta);
+      current.keys.set(slot, key);
+      size = size + 1;
+      return delta;
+    }
+
+    /**
+     * Lets an add that hit a {@link #MOVED} slot wait until the new table is published.
+     */
+    synchronized void awaitResize() {
+    }
+
+    private Table resize(Table old) {
+      Table resized = new Table(old.capacity() << 1);
+      for (int i = 0; i < old.capacity(); i++) {
+        String key = old.keys.get(i);
+        if (key != null) {
+          long value = old.values.getAndSet(i, MOVED);
+          int slot = resized.freeSlot(spread(key.hashCode()));
+          resized.values.lazySet(slot, value);
+          resized.keys.lazySet(slot, key);
+        }
+      }
+      this.table = resized;
+      return resized;
+    }
+
+  }
+
+  private static final class Table {
+
+    private final AtomicReferenceArray<String> keys;
+
+    private final AtomicLongArray values;
+
+    private final int mask;
+
+    Table(int capacity) {
+      this.keys = new AtomicReferenceArray<>(capacity);
+      this.values = new AtomicLongArray(capacity);
+      this.mask = capacity - 1;
+    }
+
+    int capacity() {
+      return mask + 1;
+    }
+
+    int find(String key, int hash) {
+      for (int i = hash & mask; ; i = (i + 1) & mask) {
+        String candidate = keys.get(i);
+        if (candidate == null) {
+          return -1;
+        }
+        if (candidate == key || candidate.equals(key)) {
+          return i;
+        }
+      }
+    }
+
+    int freeSlot(int hash) {
+      int i = hash & mask;
+      while (keys.get(i) != null) {
+        i = (i + 1) & mask;
+      }
+      return i;
+    }
+
+  }
+
+}
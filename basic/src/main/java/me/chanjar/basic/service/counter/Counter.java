@@ -0,0 +1,33 @@
+package me.chanjar.basic.service.counter;
+
+/**
+ * A monotonic event counter, the engine behind {@link me.chanjar.basic.service.FooService}.
+ */
+public interface Counter {
+
+  /**
+   * @param delta must not be negative
+   */
+  void add(long delta);
+
+  default void increment() {
+    add(1);
+  }
+
+  /**
+   * Cheap read, may miss increments that are racing with it.
+   */
+  long sum();
+
+  /**
+   * Linearizable read, never returns a value that the counter did not hold at some instant during the call.
+   */
+  long snapshot();
+
+  /**
+   * Returns the current value and sets the counter back to zero. Every increment is either part of the
+   * returned value or survives the reset, none is lost.
+   */
+  long sumThenReset();
+
+}
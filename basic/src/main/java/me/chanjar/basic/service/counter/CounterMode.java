@@ -0,0 +1,51 @@
+package me.chanjar.basic.service.counter;
+
+public enum CounterMode {
+
+  /**
+   * Unsynchronized field, only safe when confined to one thread.
+   */
+  PLAIN {
+    @Override
+    public Counter newCounter() {
+      return new PlainCounter();
+    }
+  },
+
+  SYNCHRONIZED {
+    @Override
+    public Counter newCounter() {
+      return new SynchronizedCounter();
+    }
+  },
+
+  ATOMIC {
+    @Override
+    public Counter newCounter() {
+      return new AtomicCounter();
+    }
+  },
+
+  /**
+   * Padded per-thread cells, increments scale with cores.
+   */
+  STRIPED {
+    @Override
+    public Counter newCounter() {
+      return new StripedCounter();
+    }
+  },
+
+  /**
+   * Per-thread batches flushed to a shared atomic counter, see {@link BatchingCounter}.
+   */
+  THREAD_LOCAL {
+    @Override
+    public Counter newCounter() {
+      return new BatchingCounter(new AtomicCounter());
+    }
+  };
+
+  public abstract Counter newCounter();
+
+}
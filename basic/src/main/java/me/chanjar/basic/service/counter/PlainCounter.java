@@ -0,0 +1,29 @@
+package me.chanjar.basic.service.counter;
+
+public class PlainCounter implements Counter {
+
+  private long count = 0;
+
+  @Override
+  public void add(long delta) {
+    this.count += delta;
+  }
+
+  @Override
+  public long sum() {
+    return count;
+  }
+
+  @Override
+  public long snapshot() {
+    return count;
+  }
+
+  @Override
+  public long sumThenReset() {
+    long sum = count;
+    this.count = 0;
+    return sum;
+  }
+
+}
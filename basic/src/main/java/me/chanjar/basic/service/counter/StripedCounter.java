@@ -0,0 +1,127 @@
+package me.chanjar.basic.service.counter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LongAdder style counter: every thread adds into one of several cells, {@link #sum()} adds the cells up.
+ * <p>
+ * Cells live in one {@link AtomicLongArray}, {@link #PAD} slots apart, so that no two cells share a cache line
+ * (128 bytes also keeps them clear of the adjacent-line prefetcher).
+ */
+public class StripedCounter implements Counter {
+
+  private static final int PAD = 16;
+
+  private static final int SNAPSHOT_RETRIES = 16;
+
+  private final AtomicLongArray cells;
+
+  private final int mask;
+
+  /**
+   * Odd while a {@link #sumThenReset()} is in progress, lets {@link #snapshot()} detect that cells went down.
+   */
+  private final AtomicInteger resets = new AtomicInteger();
+
+  /**
+   * Set by a {@link #snapshot()} that keeps losing the race with writers, new increments wait until it is done.
+   */
+  private volatile boolean frozen;
+
+  public StripedCounter() {
+    this(Runtime.getRuntime().availableProcessors() * 2);
+  }
+
+  public StripedCounter(int stripes) {
+    if (stripes < 1) {
+      throw new IllegalArgumentException("stripes must be positive: " + stripes);
+    }
+    int size = Integer.highestOneBit(stripes - 1) << 1;
+    this.mask = Math.max(size, 1) - 1;
+    // leading and trailing padding keeps the first and last cell away from neighbouring objects
+    this.cells = new AtomicLongArray((mask + 3) * PAD);
+  }
+
+  @Override
+  public void add(long delta) {
+    while (frozen) {
+      Thread.yield();
+    }
+    cells.getAndAdd(cellIndex(), delta);
+  }
+
+  @Override
+  public long sum() {
+    long sum = 0;
+    for (int i = 0; i <= mask; i++) {
+      sum += cells.get((i + 1) * PAD);
+    }
+    return sum;
+  }
+
+  /**
+   * Double collect: between resets cells only grow, so two equal consecutive sums mean no cell changed
+   * in between and the sum was the counter's value at that moment. After {@link #SNAPSHOT_RETRIES} failed tries
+   * new increments are held back until the collect succeeds, so the read cannot livelock.
+   */
+  @Override
+  public long snapshot() {
+    for (int attempt = 0; attempt < SNAPSHOT_RETRIES; attempt++) {
+      long sum = tryCollect();
+      if (sum >= 0) {
+        return sum;
+      }
+    }
+    synchronized (this) {
+      frozen = true;
+      try {
+        while (true) {
+          long sum = tryCollect();
+          if (sum >= 0) {
+            return sum;
+          }
+        }
+      } finally {
+        frozen = false;
+      }
+    }
+  }
+
+  /**
+   * @return the sum, or -1 if it changed while being read
+   */
+  private long tryCollect() {
+    int before = resets.get();
+    if ((before & 1) == 0) {
+      long first = sum();
+      long second = sum();
+      if (first == second && resets.get() == before) {
+        return second;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public synchronized long sumThenReset() {
+    resets.incrementAndGet();
+    long sum = 0;
+    for (int i = 0; i <= mask; i++) {
+      sum += cells.getAndSet((i + 1) * PAD, 0);
+    }
+    resets.incrementAndGet();
+    return sum;
+  }
+
+  public int getStripes() {
+    return mask + 1;
+  }
+
+  private int cellIndex() {
+    long id = Thread.currentThread().getId();
+    int hash = (int) ((id * 0x9E3779B97F4A7C15L) >>> 32);
+    return ((hash & mask) + 1) * PAD;
+  }
+
+}
@@ -0,0 +1,29 @@
+package me.chanjar.basic.service.counter;
+
+public class SynchronizedCounter implements Counter {
+
+  private long count = 0;
+
+  @Override
+  public synchronized void add(long delta) {
+    this.count += delta;
+  }
+
+  @Override
+  public synchronized long sum() {
+    return count;
+  }
+
+  @Override
+  public long snapshot() {
+    return sum();
+  }
+
+  @Override
+  public synchronized long sumThenReset() {
+    long sum = count;
+    this.count = 0;
+    return sum;
+  }
+
+}
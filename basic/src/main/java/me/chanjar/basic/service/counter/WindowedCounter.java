@@ -0,0 +1,128 @@
+package me.chanjar.basic.service.counter;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Events per second over a sliding window, kept in a ring of time buckets.
+ * <p>
+ * Every bucket is one long: the high {@link #STAMP_BITS} bits say which bucket period it belongs to, the rest is
+ * the count. An increment that lands on a bucket still stamped with an old period replaces it in the same CAS,
+ * so the ring rotates lazily without a background thread and without allocating. Threads are spread over
+ * several rings like {@link StripedCounter} cells. Reading sums at most {@code buckets} buckets per ring.
+ */
+public class WindowedCounter {
+
+  public static final long DEFAULT_BUCKET_MILLIS = 100;
+
+  public static final int DEFAULT_BUCKETS = 600;
+
+  private static final int STAMP_BITS = 24;
+
+  private static final int COUNT_BITS = 64 - STAMP_BITS;
+
+  private static final long STAMP_MASK = (1L << STAMP_BITS) - 1;
+
+  private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+  private static final int PAD = 16;
+
+  private final long bucketNanos;
+
+  private final int buckets;
+
+  private final int ringStride;
+
+  private final int stripeMask;
+
+  private final AtomicLongArray rings;
+
+  private final LongSupplier clock;
+
+  private final long origin;
+
+  /**
+   * 100ms buckets covering the last 60 seconds.
+   */
+  public WindowedCounter() {
+    this(DEFAULT_BUCKET_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_BUCKETS);
+  }
+
+  public WindowedCounter(long bucketWidth, TimeUnit unit, int buckets) {
+    this(bucketWidth, unit, buckets, Runtime.getRuntime().availableProcessors(), System::nanoTime);
+  }
+
+  WindowedCounter(long bucketWidth, TimeUnit unit, int buckets, int stripes, LongSupplier clock) {
+    if (bucketWidth <= 0 || buckets < 1 || stripes < 1) {
+      throw new IllegalArgumentException("bucket width, buckets and stripes must be positive");
+    }
+    this.bucketNanos = unit.toNanos(bucketWidth);
+    this.buckets = buckets;
+    this.ringStride = buckets + PAD;
+    int size = Integer.highestOneBit(stripes - 1) << 1;
+    this.stripeMask = Math.max(size, 1) - 1;
+    this.rings = new AtomicLongArray(PAD + (stripeMask + 1) * ringStride);
+    this.clock = clock;
+    this.origin = clock.getAsLong();
+  }
+
+  public void add(long delta) {
+    long period = (clock.getAsLong() - origin) / bucketNanos;
+    long stamp = (period & STAMP_MASK) << COUNT_BITS;
+    int index = ringOffset() + (int) (period % buckets);
+    while (true) {
+      long current = rings.get(index);
+      long next = (current & ~COUNT_MASK) == stamp ? current + delta : stamp | delta;
+      if (rings.compareAndSet(index, current, next)) {
+        return;
+      }
+    }
+  }
+
+  public void increment() {
+    add(1);
+  }
+
+  /**
+   * @param window at most {@link #getMaxWindow()}
+   * @return events per second in the last {@code window}, or since creation if that is shorter
+   */
+  public double getRate(Duration window) {
+    long windowNanos = window.toNanos();
+    if (windowNanos <= 0 || windowNanos > buckets * bucketNanos) {
+      throw new IllegalArgumentException("window must be in (0, " + getMaxWindow() + "]: " + window);
+    }
+    long elapsed = clock.getAsLong() - origin;
+    long current = elapsed / bucketNanos;
+    long span = (windowNanos + bucketNanos - 1) / bucketNanos;
+    long first = Math.max(0, current - span + 1);
+
+    long count = 0;
+    for (long period = first; period <= current; period++) {
+      long stamp = (period & STAMP_MASK) << COUNT_BITS;
+      int slot = (int) (period % buckets);
+      for (int stripe = 0; stripe <= stripeMask; stripe++) {
+        long bucket = rings.get(PAD + stripe * ringStride + slot);
+        if ((bucket & ~COUNT_MASK) == stamp) {
+          count += bucket & COUNT_MASK;
+        }
+      }
+    }
+
+    long covered = elapsed - first * bucketNanos;
+    return covered <= 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / covered;
+  }
+
+  public Duration getMaxWindow() {
+    return Duration.ofNanos(buckets * bucketNanos);
+  }
+
+  private int ringOffset() {
+    long id = Thread.currentThread().getId();
+    int hash = (int) ((id * 0x9E3779B97F4A7C15L) >>> 32);
+    return PAD + (hash & stripeMask) * ringStride;
+  }
+
+}
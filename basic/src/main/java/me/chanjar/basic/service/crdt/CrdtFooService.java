@@ -0,0 +1,195 @@
+package me.chanjar.basic.service.crdt;
+
+import me.chanjar.basic.service.FooService;
+import me.chanjar.basic.service.counter.Counter;
+import me.chanjar.basic.service.counter.StripedCounter;
+import me.chanjar.basic.service.counter.WindowedCounter;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link FooService} whose count is cluster-wide: every node runs one instance with its own {@code nodeId},
+ * counts locally and periodically ships {@link #delta()} (or {@link #state()}) to its peers, which
+ * {@link #merge(PNCounterState)} it. No coordination is needed, all nodes converge to the same count.
+ * <p>
+ * A node that restarted with an empty state gets its old totals back from the first peer state it merges, so
+ * totals are neither lost nor counted twice. It has to merge before it counts again (or use a new
+ * {@code nodeId}), increments made before that are absorbed by the recovered, larger totals.
+ * <p>
+ * {@link #getAndReset()} subtracts the amount it returns from the cluster-wide count on this node, at most
+ * {@link Integer#MAX_VALUE}, increments made concurrently on other nodes are kept. Counts are reported between 0
+ * and {@link Integer#MAX_VALUE}. {@link #getRate(Duration)} is the rate of this node's own increments.
+ */
+public class CrdtFooService implements FooService {
+
+  private final String nodeId;
+
+  private final Slot own = new Slot();
+
+  private final Counter ownPositive = new StripedCounter();
+
+  private final Counter ownNegative = new StripedCounter();
+
+  private final WindowedCounter rates = new WindowedCounter();
+
+  private final Map<String, Slot> peers = new ConcurrentHashMap<>();
+
+  private final Set<String> changedPeers = ConcurrentHashMap.newKeySet();
+
+  private long sentPositive = -1;
+
+  private long sentNegative = -1;
+
+  public CrdtFooService(String nodeId) {
+    this.nodeId = nodeId;
+  }
+
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  @Override
+  public void plusCount() {
+    ownPositive.increment();
+    rates.increment();
+  }
+
+  @Override
+  public void plusCount(int delta) {
+    if (delta < 0) {
+      throw new IllegalArgumentException("delta must not be negative: " + delta);
+    }
+    ownPositive.add(delta);
+    rates.add(delta);
+  }
+
+  @Override
+  public int getCount() {
+    long count = own.positive.get() + ownPositive.sum() - own.negative.get() - ownNegative.sum();
+    for (Slot peer : peers.values()) {
+      count += peer.positive.get() - peer.negative.get();
+    }
+    return saturate(count);
+  }
+
+  @Override
+  public int getExactCount() {
+    return saturate(state().value());
+  }
+
+  @Override
+  public synchronized int getAndReset() {
+    int count = saturate(state().value());
+    if (count > 0) {
+      ownNegative.add(count);
+    }
+    return count;
+  }
+
+  @Override
+  public double getRate(Duration window) {
+    return rates.getRate(window);
+  }
+
+  /**
+   * Full state, for a peer that joins or has to resynchronize.
+   */
+  public PNCounterState state() {
+    PNCounterState.Builder builder = PNCounterState.builder()
+        .slot(nodeId, ownPositiveTotal(), ownNegativeTotal());
+    for (Map.Entry<String, Slot> entry : peers.entrySet()) {
+      builder.slot(entry.getKey(), entry.getValue().positive.get(), entry.getValue().negative.get());
+    }
+    return builder.build();
+  }
+
+  /**
+   * Slots that changed since the previous call: this node's own slot if it was counted, plus peers whose slot
+   * grew through {@link #merge(PNCounterState)} so that their updates are passed on.
+   */
+  public synchronized PNCounterState delta() {
+    PNCounterState.Builder builder = PNCounterState.builder();
+    long positive = ownPositiveTotal();
+    long negative = ownNegativeTotal();
+    if (positive != sentPositive || negative != sentNegative) {
+      builder.slot(nodeId, positive, negative);
+      sentPositive = positive;
+      sentNegative = negative;
+    }
+    for (Iterator<String> iterator = changedPeers.iterator(); iterator.hasNext(); ) {
+      String peer = iterator.next();
+      iterator.remove();
+      Slot slot = peers.get(peer);
+      builder.slot(peer, slot.positive.get(), slot.negative.get());
+    }
+    return builder.build();
+  }
+
+  public void merge(PNCounterState state) {
+    for (String node : state.getNodes()) {
+      long positive = state.getPositive(node);
+      long negative = state.getNegative(node);
+      if (node.equals(nodeId)) {
+        raise(own.positive, ownPositive, positive);
+        raise(own.negative, ownNegative, negative);
+      } else {
+        Slot slot = peers.computeIfAbsent(node, key -> new Slot());
+        boolean changed = max(slot.positive, positive) | max(slot.negative, negative);
+        if (changed) {
+          changedPeers.add(node);
+        }
+      }
+    }
+  }
+
+  private long ownPositiveTotal() {
+    return own.positive.get() + ownPositive.snapshot();
+  }
+
+  private long ownNegativeTotal() {
+    return own.negative.get() + ownNegative.snapshot();
+  }
+
+  /**
+   * Raises base + local to at least {@code target}, local only grows so once it is reached it stays reached.
+   */
+  private static void raise(AtomicLong base, Counter local, long target) {
+    while (true) {
+      long current = base.get();
+      long total = current + local.snapshot();
+      if (total >= target || base.compareAndSet(current, current + target - total)) {
+        return;
+      }
+    }
+  }
+
+  private static int saturate(long count) {
+    return (int) Math.max(0, Math.min(count, Integer.MAX_VALUE));
+  }
+
+  private static boolean max(AtomicLong value, long candidate) {
+    while (true) {
+      long current = value.get();
+      if (candidate <= current) {
+        return false;
+      }
+      if (value.compareAndSet(current, candidate)) {
+        return true;
+      }
+    }
+  }
+
+  private static class Slot {
+
+    private final AtomicLong positive = new AtomicLong();
+
+    private final AtomicLong negative = new AtomicLong();
+
+  }
+
+}
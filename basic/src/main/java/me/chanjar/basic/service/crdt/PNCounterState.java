@@ -0,0 +1,188 @@
+package me.chanjar.basic.service.crdt;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable state of a PN-counter: for every node the total it has added (P) and subtracted (N). Both only grow,
+ * so merging takes the per-node maximum, which is commutative, associative and idempotent: states can be
+ * exchanged in any order, any number of times, and every node converges to the same value.
+ */
+public final class PNCounterState {
+
+  private static final byte FORMAT_VERSION = 1;
+
+  public static final PNCounterState EMPTY = new PNCounterState(Collections.emptyMap());
+
+  private final Map<String, long[]> slots;
+
+  private PNCounterState(Map<String, long[]> slots) {
+    this.slots = slots;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public Set<String> getNodes() {
+    return Collections.unmodifiableSet(slots.keySet());
+  }
+
+  public long getPositive(String node) {
+    long[] slot = slots.get(node);
+    return slot == null ? 0 : slot[0];
+  }
+
+  public long getNegative(String node) {
+    long[] slot = slots.get(node);
+    return slot == null ? 0 : slot[1];
+  }
+
+  public long value() {
+    long value = 0;
+    for (long[] slot : slots.values()) {
+      value += slot[0] - slot[1];
+    }
+    return value;
+  }
+
+  public PNCounterState merge(PNCounterState other) {
+    Builder builder = new Builder();
+    for (Map.Entry<String, long[]> entry : slots.entrySet()) {
+      builder.slot(entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+    }
+    for (Map.Entry<String, long[]> entry : other.slots.entrySet()) {
+      builder.slot(entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Format: version byte, varint slot count, then per slot a varint length and UTF-8 node id followed by P and
+   * N as varints. Small counters take a couple of bytes per node.
+   */
+  public byte[] toBytes() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(1 + slots.size() * 16);
+    out.write(FORMAT_VERSION);
+    writeVarLong(out, slots.size());
+    for (Map.Entry<String, long[]> entry : slots.entrySet()) {
+      byte[] node = entry.getKey().getBytes(StandardCharsets.UTF_8);
+      writeVarLong(out, node.length);
+      out.write(node, 0, node.length);
+      writeVarLong(out, entry.getValue()[0]);
+      writeVarLong(out, entry.getValue()[1]);
+    }
+    return out.toByteArray();
+  }
+
+  public static PNCounterState fromBytes(byte[] bytes) {
+    ByteBuffer in = ByteBuffer.wrap(bytes);
+    byte version = in.get();
+    if (version != FORMAT_VERSION) {
+      throw new IllegalArgumentException("Unsupported PN-counter state version: " + version);
+    }
+    Builder builder = new Builder();
+    long count = readVarLong(in);
+    for (long i = 0; i < count; i++) {
+      byte[] node = new byte[(int) readVarLong(in)];
+      in.get(node);
+      builder.slot(new String(node, StandardCharsets.UTF_8), readVarLong(in), readVarLong(in));
+    }
+    return builder.build();
+  }
+
+  private static void writeVarLong(ByteArrayOutputStream out, long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  private static long readVarLong(ByteBuffer in) {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = in.get();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Malformed varint");
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof PNCounterState)) {
+      return false;
+    }
+    PNCounterState that = (PNCounterState) o;
+    if (!slots.keySet().equals(that.slots.keySet())) {
+      return false;
+    }
+    for (String node : slots.keySet()) {
+      if (getPositive(node) != that.getPositive(node) || getNegative(node) != that.getNegative(node)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 0;
+    for (Map.Entry<String, long[]> entry : slots.entrySet()) {
+      hash += entry.getKey().hashCode() ^ Long.hashCode(entry.getValue()[0] * 31 + entry.getValue()[1]);
+    }
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("PNCounterState{");
+    for (Map.Entry<String, long[]> entry : slots.entrySet()) {
+      sb.append(entry.getKey()).append("=+").append(entry.getValue()[0])
+          .append("/-").append(entry.getValue()[1]).append(' ');
+    }
+    return sb.append("value=").append(value()).append('}').toString();
+  }
+
+  public static final class Builder {
+
+    private final Map<String, long[]> slots = new LinkedHashMap<>();
+
+    private Builder() {
+    }
+
+    /**
+     * Adding a node twice keeps the maximum of each total.
+     */
+    public Builder slot(String node, long positive, long negative) {
+      if (positive < 0 || negative < 0) {
+        throw new IllegalArgumentException("PN-counter totals must not be negative");
+      }
+      long[] slot = slots.get(node);
+      if (slot == null) {
+        slots.put(node, new long[] { positive, negative });
+      } else {
+        slot[0] = Math.max(slot[0], positive);
+        slot[1] = Math.max(slot[1], negative);
+      }
+      return this;
+    }
+
+    public PNCounterState build() {
+      return slots.isEmpty() ? EMPTY : new PNCounterState(new LinkedHashMap<>(slots));
+    }
+
+  }
+
+}
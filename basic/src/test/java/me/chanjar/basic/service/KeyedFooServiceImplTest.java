@@ -0,0 +1,60 @@
+package me.chanjar.basic.service;
+
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+
+public class KeyedFooServiceImplTest {
+
+  @Test
+  public void testPlusCount() {
+    KeyedFooService foo = new KeyedFooServiceImpl();
+    assertEquals(foo.getCount("a"), 0);
+
+    foo.plusCount("a");
+    foo.plusCount("a", 2);
+    foo.plusCount("b");
+    assertEquals(foo.getCount("a"), 3);
+    assertEquals(foo.getCount("b"), 1);
+
+    Map<String, Long> all = new HashMap<>();
+    foo.forEach(all::put);
+    assertEquals(all.size(), 2);
+    assertEquals(all.get("a").longValue(), 3);
+  }
+
+  @Test
+  public void testNoLostUpdatesWhileResizing() throws Exception {
+    KeyedFooService foo = new KeyedFooServiceImpl();
+    int threads = 8;
+    int keys = 5000;
+    int rounds = 20;
+
+    Thread[] workers = new Thread[threads];
+    for (int i = 0; i < threads; i++) {
+      int offset = i;
+      workers[i] = new Thread(() -> {
+        for (int round = 0; round < rounds; round++) {
+          for (int k = 0; k < keys; k++) {
+            foo.plusCount("key-" + ((k + offset * 997) % keys));
+          }
+        }
+      });
+      workers[i].start();
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+
+    for (int k = 0; k < keys; k++) {
+      assertEquals(foo.getCount("key-" + k), threads * rounds);
+    }
+    long[] total = new long[1];
+    foo.forEach((key, count) -> total[0] += count);
+    assertEquals(total[0], (long) threads * rounds * keys);
+  }
+
+}
@@ -0,0 +1,104 @@
+package me.chanjar.basic.service.counter;
+
+import me.chanjar.basic.service.FooService;
+import me.chanjar.basic.service.FooServiceImpl;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+public class CheckpointedCounterTest {
+
+  private File file;
+
+  @BeforeMethod
+  public void createFile() throws IOException {
+    file = File.createTempFile("counter", ".ckpt");
+    Files.delete(file.toPath());
+  }
+
+  @AfterMethod(alwaysRun = true)
+  public void deleteFile() throws IOException {
+    Files.deleteIfExists(file.toPath());
+  }
+
+  @Test
+  public void testCountSurvivesRestart() throws Exception {
+    CheckpointedCounter counter = open();
+    FooService foo = new FooServiceImpl(counter);
+    foo.plusCount();
+    foo.plusCount(2);
+    counter.close();
+
+    counter = open();
+    foo = new FooServiceImpl(counter);
+    assertEquals(foo.getCount(), 3);
+    foo.plusCount();
+    assertEquals(foo.getExactCount(), 4);
+    assertEquals(foo.getAndReset(), 4);
+    counter.close();
+
+    counter = open();
+    assertEquals(counter.sum(), 0);
+    counter.close();
+  }
+
+  @Test
+  public void testResetSurvivesCrash() throws Exception {
+    CheckpointedCounter counter = open();
+    counter.add(7);
+    counter.checkpoint();
+    assertEquals(counter.sumThenReset(), 7);
+
+    // reopen without closing, as after a crash
+    CheckpointedCounter reopened = open();
+    assertEquals(reopened.sum(), 0);
+    reopened.close();
+    counter.close();
+  }
+
+  @Test
+  public void testTornCheckpointFallsBackToPreviousOne() throws Exception {
+    CheckpointedCounter counter = open();
+    counter.add(5);
+    counter.checkpoint();
+    counter.add(5);
+    counter.close();
+
+    // the second checkpoint went to slot 0, flip a byte of its value
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.seek(16 + 8 + 7);
+      raf.write(0x7f);
+    }
+
+    counter = open();
+    assertEquals(counter.sum(), 5);
+    counter.close();
+  }
+
+  @Test
+  public void testForeignFileRejected() throws Exception {
+    byte[] foreign = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 };
+    Files.write(file.toPath(), foreign);
+    try {
+      open();
+      fail("foreign file accepted");
+    } catch (IOException e) {
+      // expected
+    }
+    assertEquals(Files.readAllBytes(file.toPath()), foreign);
+  }
+
+  private CheckpointedCounter open() throws IOException {
+    return new CheckpointedCounter(new StripedCounter(), file, 0, TimeUnit.SECONDS);
+  }
+
+}
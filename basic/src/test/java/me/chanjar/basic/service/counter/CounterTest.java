@@ -0,0 +1,217 @@
+package me.chanjar.basic.service.counter;
+
+import me.chanjar.basic.service.FooService;
+import me.chanjar.basic.service.FooServiceImpl;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class CounterTest {
+
+  private static final int THREADS = 8;
+
+  private static final int INCREMENTS = 100000;
+
+  @DataProvider
+  public Object[][] threadSafeModes() {
+    return new Object[][] {
+        { CounterMode.SYNCHRONIZED },
+        { CounterMode.ATOMIC },
+        { CounterMode.STRIPED },
+        { CounterMode.THREAD_LOCAL }
+    };
+  }
+
+  @Test(dataProvider = "threadSafeModes")
+  public void testNoLostUpdates(CounterMode mode) throws Exception {
+    FooService foo = new FooServiceImpl(mode);
+
+    CountDownLatch start = new CountDownLatch(1);
+    Thread[] threads = new Thread[THREADS];
+    for (int i = 0; i < THREADS; i++) {
+      threads[i] = new Thread(() -> {
+        awaitQuietly(start);
+        for (int j = 0; j < INCREMENTS; j++) {
+          foo.plusCount();
+        }
+      });
+      threads[i].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(foo.getCount(), THREADS * INCREMENTS);
+    assertEquals(foo.getExactCount(), THREADS * INCREMENTS);
+  }
+
+  @Test(dataProvider = "threadSafeModes", timeOut = 60000)
+  public void testExactCountWhileWriting(CounterMode mode) throws Exception {
+    FooService foo = new FooServiceImpl(mode);
+
+    Thread[] threads = new Thread[THREADS];
+    for (int i = 0; i < THREADS; i++) {
+      threads[i] = new Thread(() -> {
+        for (int j = 0; j < INCREMENTS; j++) {
+          foo.plusCount();
+        }
+      });
+      threads[i].start();
+    }
+
+    int reads = 0;
+    int last = 0;
+    while (reads == 0 || Arrays.stream(threads).anyMatch(Thread::isAlive)) {
+      int exact = foo.getExactCount();
+      assertTrue(exact >= last, exact + " < " + last);
+      assertTrue(exact <= THREADS * INCREMENTS);
+      last = exact;
+      reads++;
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(foo.getExactCount(), THREADS * INCREMENTS);
+  }
+
+  @Test
+  public void testCountSaturates() {
+    Counter counter = new AtomicCounter();
+    FooService foo = new FooServiceImpl(counter);
+    counter.add(Integer.MAX_VALUE + 10L);
+
+    assertEquals(foo.getCount(), Integer.MAX_VALUE);
+    assertEquals(foo.getExactCount(), Integer.MAX_VALUE);
+    assertEquals(foo.getAndReset(), Integer.MAX_VALUE);
+    assertEquals(foo.getCount(), 10);
+  }
+
+  @Test(dataProvider = "threadSafeModes")
+  public void testGetAndResetLosesNothing(CounterMode mode) throws Exception {
+    FooService foo = new FooServiceImpl(mode);
+
+    AtomicBoolean running = new AtomicBoolean(true);
+    AtomicLong drained = new AtomicLong();
+    Thread drainer = new Thread(() -> {
+      while (running.get()) {
+        drained.addAndGet(foo.getAndReset());
+      }
+    });
+    drainer.start();
+
+    Thread[] threads = new Thread[THREADS];
+    for (int i = 0; i < THREADS; i++) {
+      threads[i] = new Thread(() -> {
+        for (int j = 0; j < INCREMENTS / 10; j++) {
+          foo.plusCount(10);
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    running.set(false);
+    drainer.join();
+    drained.addAndGet(foo.getAndReset());
+
+    assertEquals(drained.get(), THREADS * INCREMENTS);
+    assertEquals(foo.getCount(), 0);
+  }
+
+  @Test
+  public void testBatchFlushedOnThreshold() {
+    AtomicCounter target = new AtomicCounter();
+    BatchingCounter counter = new BatchingCounter(target, 3, 1, TimeUnit.HOURS);
+
+    counter.add(1);
+    counter.add(1);
+    assertEquals(target.sum(), 0);
+    assertEquals(counter.sum(), 2);
+
+    counter.add(1);
+    assertEquals(target.sum(), 3);
+    assertEquals(counter.sum(), 3);
+  }
+
+  @Test
+  public void testBatchFlushedOnMaxDelay() {
+    AtomicCounter target = new AtomicCounter();
+    BatchingCounter counter = new BatchingCounter(target, 1000, 0, TimeUnit.MILLISECONDS);
+
+    for (int i = 1; i < BatchingCounter.CLOCK_CHECK_INTERVAL; i++) {
+      counter.add(1);
+    }
+    assertEquals(target.sum(), 0);
+
+    counter.add(1);
+    assertEquals(target.sum(), BatchingCounter.CLOCK_CHECK_INTERVAL);
+  }
+
+  @Test
+  public void testIdleBatchDrainedOnReset() throws Exception {
+    AtomicCounter target = new AtomicCounter();
+    BatchingCounter counter = new BatchingCounter(target, 100, 1, TimeUnit.HOURS);
+
+    CountDownLatch added = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(1);
+    Thread idle = new Thread(() -> {
+      counter.add(5);
+      added.countDown();
+      awaitQuietly(done);
+    });
+    idle.start();
+    added.await();
+
+    assertEquals(counter.snapshot(), 5);
+    assertEquals(counter.sumThenReset(), 5);
+    assertEquals(counter.sum(), 0);
+
+    done.countDown();
+    idle.join();
+    assertEquals(counter.sum(), 0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNegativeDeltaRejected() {
+    new FooServiceImpl().plusCount(-1);
+  }
+
+  @Test
+  public void testRateTrackingOptIn() {
+    FooService untracked = new FooServiceImpl();
+    untracked.plusCount();
+    assertTrue(Double.isNaN(untracked.getRate(Duration.ofSeconds(1))));
+
+    FooService tracked = new FooServiceImpl(new StripedCounter(), new WindowedCounter());
+    tracked.plusCount(10);
+    assertTrue(tracked.getRate(Duration.ofSeconds(1)) > 0);
+  }
+
+  @Test
+  public void testStripesRoundedToPowerOfTwo() {
+    assertEquals(new StripedCounter(1).getStripes(), 1);
+    assertEquals(new StripedCounter(3).getStripes(), 4);
+    assertEquals(new StripedCounter(8).getStripes(), 8);
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
@@ -0,0 +1,56 @@
+package me.chanjar.basic.service.counter;
+
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.testng.Assert.assertEquals;
+
+public class WindowedCounterTest {
+
+  private final AtomicLong now = new AtomicLong(1000);
+
+  private WindowedCounter newCounter() {
+    return new WindowedCounter(100, TimeUnit.MILLISECONDS, 600, 4, now::get);
+  }
+
+  @Test
+  public void testRateOverWindow() {
+    WindowedCounter counter = newCounter();
+    counter.add(5);
+    advance(500);
+    counter.add(5);
+
+    advance(499);
+    assertEquals(counter.getRate(Duration.ofSeconds(1)), 10.0, 0.1);
+
+    // at 1.1s the first bucket fell out of the window, which now spans 0.2s - 1.1s
+    advance(101);
+    assertEquals(counter.getRate(Duration.ofSeconds(1)), 5 / 0.9, 0.01);
+    assertEquals(counter.getRate(Duration.ofSeconds(10)), 10 / 1.1, 0.01);
+  }
+
+  @Test
+  public void testOldBucketsAreRecycled() {
+    WindowedCounter counter = newCounter();
+    counter.add(100);
+
+    // one full ring later the same slot is reused for a new period, the 100 events are gone
+    advance(60050);
+    counter.add(1);
+    assertEquals(counter.getRate(Duration.ofMillis(100)), 1 / 0.05, 0.01);
+    assertEquals(counter.getRate(Duration.ofSeconds(60)) * 59.95, 1.0, 0.01);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testWindowLongerThanRingRejected() {
+    newCounter().getRate(Duration.ofSeconds(61));
+  }
+
+  private void advance(long millis) {
+    now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+  }
+
+}
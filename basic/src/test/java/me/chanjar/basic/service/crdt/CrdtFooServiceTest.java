@@ -0,0 +1,100 @@
+package me.chanjar.basic.service.crdt;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+
+public class CrdtFooServiceTest {
+
+  @Test
+  public void testNodesConvergeWithShuffledAndDuplicatedDeltas() {
+    List<CrdtFooService> nodes = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      nodes.add(new CrdtFooService("node-" + i));
+    }
+    Random random = new Random(42);
+
+    int expected = 0;
+    for (int round = 0; round < 20; round++) {
+      List<byte[]> messages = new ArrayList<>();
+      for (CrdtFooService node : nodes) {
+        int delta = random.nextInt(10);
+        node.plusCount(delta);
+        expected += delta;
+        byte[] message = node.delta().toBytes();
+        messages.add(message);
+        messages.add(message);
+      }
+      Collections.shuffle(messages, random);
+      for (byte[] message : messages) {
+        for (CrdtFooService node : nodes) {
+          node.merge(PNCounterState.fromBytes(message));
+        }
+      }
+    }
+
+    for (CrdtFooService node : nodes) {
+      assertEquals(node.getCount(), expected);
+      assertEquals(node.state(), nodes.get(0).state());
+    }
+  }
+
+  @Test
+  public void testRestartedNodeRecoversItsSlotFromPeer() {
+    CrdtFooService a = new CrdtFooService("a");
+    CrdtFooService b = new CrdtFooService("b");
+    a.plusCount(5);
+    b.plusCount(3);
+    b.merge(a.delta());
+
+    CrdtFooService restarted = new CrdtFooService("a");
+    restarted.merge(b.state());
+    restarted.plusCount();
+    assertEquals(restarted.getExactCount(), 9);
+
+    b.merge(restarted.delta());
+    assertEquals(b.getExactCount(), 9);
+  }
+
+  @Test
+  public void testGetAndResetConverges() {
+    CrdtFooService a = new CrdtFooService("a");
+    CrdtFooService b = new CrdtFooService("b");
+    a.plusCount(4);
+    b.plusCount(6);
+    a.merge(b.delta());
+
+    assertEquals(a.getAndReset(), 10);
+    b.merge(a.delta());
+    assertEquals(a.getCount(), 0);
+    assertEquals(b.getCount(), 0);
+  }
+
+  @Test
+  public void testCountSaturates() {
+    CrdtFooService a = new CrdtFooService("a");
+    a.merge(PNCounterState.builder().slot("b", Integer.MAX_VALUE + 10L, 0).build());
+
+    assertEquals(a.getCount(), Integer.MAX_VALUE);
+    assertEquals(a.getExactCount(), Integer.MAX_VALUE);
+    assertEquals(a.getAndReset(), Integer.MAX_VALUE);
+    assertEquals(a.getCount(), 10);
+    assertEquals(a.getAndReset(), 10);
+    assertEquals(a.getCount(), 0);
+  }
+
+  @Test
+  public void testStateRoundTrip() {
+    PNCounterState state = PNCounterState.builder()
+        .slot("a", 300, 1)
+        .slot("节点", Long.MAX_VALUE, 0)
+        .build();
+    assertEquals(PNCounterState.fromBytes(state.toBytes()), state);
+  }
+
+}
@@ -0,0 +1,57 @@
+package me.chanjar.benchmark;
+
+import me.chanjar.benchmark.basic.FooServiceBenchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the matched benchmarks once per thread count, first for throughput (ops/s) then for sampled latency
+ * (ns, the JSON has p50 ... p99.99 under {@code primaryMetric.scorePercentiles}).
+ * <p>
+ * Usage: {@code java -jar benchmarks.jar [include-regex]}, thread counts can be changed with
+ * {@code -Dthreads=1,4}, the output directory with {@code -Doutput=target/jmh}.
+ * <p>
+ * Only the counter benchmarks ({@link FooServiceBenchmark}) are run by default. The others measure one context
+ * or one query at a time and are meant to be picked explicitly with {@code -Dthreads=1}, e.g.
+ * {@code java -Dthreads=1 -jar benchmarks.jar ProxyCreationBenchmark}.
+ */
+public class BenchmarkRunner {
+
+  public static void main(String[] args) throws RunnerException {
+    String include = args.length > 0 ? args[0] : Pattern.quote(FooServiceBenchmark.class.getName() + ".");
+    String[] threads = System.getProperty("threads", "1,2,4,8,16").split(",");
+    File output = new File(System.getProperty("output", "target/jmh"));
+    if (!output.isDirectory() && !output.mkdirs()) {
+      throw new IllegalStateException("Cannot create " + output);
+    }
+
+    for (String thread : threads) {
+      int threadCount = Integer.parseInt(thread.trim());
+      run(include, threadCount, Mode.Throughput, TimeUnit.SECONDS, output);
+      run(include, threadCount, Mode.SampleTime, TimeUnit.NANOSECONDS, output);
+    }
+  }
+
+  private static void run(String include, int threads, Mode mode, TimeUnit timeUnit, File output)
+      throws RunnerException {
+    File result = new File(output, mode.shortLabel() + "-" + threads + "t.json");
+    Options options = new OptionsBuilder()
+        .include(include)
+        .threads(threads)
+        .mode(mode)
+        .timeUnit(timeUnit)
+        .resultFormat(ResultFormatType.JSON)
+        .result(result.getPath())
+        .build();
+    new Runner(options).run();
+  }
+
+}
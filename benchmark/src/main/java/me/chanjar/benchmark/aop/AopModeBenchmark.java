@@ -0,0 +1,83 @@
+package me.chanjar.benchmark.aop;
+
+import me.chanjar.aop.aspect.FooAspect;
+import me.chanjar.aop.config.AopConfig;
+import me.chanjar.aop.config.AspectJWeavingConfig;
+import me.chanjar.aop.service.FooService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * Per-call overhead of {@link FooAspect} and context startup time, with whichever AOP mode the aop module was
+ * built with: CGLIB proxies through {@link AopConfig} by default, woven classes through
+ * {@link AspectJWeavingConfig} when built with {@code -Paspectj-ctw}. Compare the results of both builds:
+ * <pre>
+ * mvn -pl benchmark -am package -DskipTests &amp;&amp; java -Doutput=target/jmh-proxy -jar benchmark/target/benchmarks.jar AopMode
+ * mvn -pl benchmark -am package -DskipTests -Paspectj-ctw &amp;&amp; java -Doutput=target/jmh-ctw -jar benchmark/target/benchmarks.jar AopMode
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AopModeBenchmark {
+
+  private AnnotationConfigApplicationContext context;
+
+  private FooService fooService;
+
+  @Setup
+  public void setup() {
+    context = newContext();
+    fooService = context.getBean(FooService.class);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public int incrementAndGet() {
+    return fooService.incrementAndGet();
+  }
+
+  @Benchmark
+  public Object startContext() {
+    try (AnnotationConfigApplicationContext started = newContext()) {
+      return started.getBean(FooService.class);
+    }
+  }
+
+  static AnnotationConfigApplicationContext newContext() {
+    AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+    if (isWoven()) {
+      context.getEnvironment().setActiveProfiles("aspectj-weaving");
+      context.register(AspectJWeavingConfig.class);
+    } else {
+      context.register(AopConfig.class);
+    }
+    context.refresh();
+    return context;
+  }
+
+  /**
+   * ajc adds a static {@code aspectOf()} to every aspect it compiles.
+   */
+  static boolean isWoven() {
+    try {
+      FooAspect.class.getMethod("aspectOf");
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+}
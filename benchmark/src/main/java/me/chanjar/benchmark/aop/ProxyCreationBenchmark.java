@@ -0,0 +1,64 @@
+package me.chanjar.benchmark.aop;
+
+import me.chanjar.aop.config.AopConfig;
+import me.chanjar.aop.proxy.InstrumentedAutoProxyCreatorInstaller;
+import me.chanjar.aop.service.FooServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * Startup time of an {@link AopConfig} context with many extra beans, every other one advised by the aop
+ * module's aspects:
+ * <ul>
+ * <li>{@code plain}: the stock auto proxy creator</li>
+ * <li>{@code uncached}: {@link InstrumentedAutoProxyCreatorInstaller} evaluating pointcuts for every bean</li>
+ * <li>{@code cached}: the same, reusing the matches of earlier contexts, as a test suite starting similar
+ * contexts does</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProxyCreationBenchmark {
+
+  @Param({ "plain", "uncached", "cached" })
+  private String mode;
+
+  @Param({ "100", "1000" })
+  private int beans;
+
+  @Benchmark
+  public int startContext() {
+    try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+      context.register(AopConfig.class);
+      if (!"plain".equals(mode)) {
+        RootBeanDefinition installer = new RootBeanDefinition(InstrumentedAutoProxyCreatorInstaller.class);
+        installer.getPropertyValues().add("cacheMatches", "cached".equals(mode));
+        context.registerBeanDefinition("instrumentedAutoProxyCreatorInstaller", installer);
+      }
+      for (int i = 0; i < beans; i++) {
+        Class<?> beanClass = i % 2 == 0 ? FooServiceImpl.class : PlainBean.class;
+        context.registerBeanDefinition("bean" + i, new RootBeanDefinition(beanClass));
+      }
+      context.refresh();
+      return context.getBeanDefinitionCount();
+    }
+  }
+
+  public static class PlainBean {
+
+    public int foo() {
+      return 1;
+    }
+
+  }
+
+}
@@ -0,0 +1,66 @@
+package me.chanjar.benchmark.basic;
+
+import me.chanjar.basic.service.FooService;
+import me.chanjar.basic.service.FooServiceImpl;
+import me.chanjar.basic.service.counter.CounterMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Every {@link CounterMode} behind {@link FooServiceImpl}, shared by all benchmark threads, with
+ * {@code readPercent} out of every 100 operations being {@link FooService#getCount()} and the rest
+ * {@link FooService#plusCount()}. PLAIN is the old unsynchronized counter and loses updates with more than
+ * one thread, it is kept as the lower bound.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FooServiceBenchmark {
+
+  @Param({ "PLAIN", "SYNCHRONIZED", "ATOMIC", "STRIPED", "THREAD_LOCAL" })
+  private CounterMode mode;
+
+  @Param({ "0", "10", "50" })
+  private int readPercent;
+
+  private FooService fooService;
+
+  @Setup
+  public void setup() {
+    fooService = new FooServiceImpl(mode);
+  }
+
+  @Benchmark
+  public int mixed(Operations operations) {
+    if (operations.nextIsRead(readPercent)) {
+      return fooService.getCount();
+    }
+    fooService.plusCount();
+    return 0;
+  }
+
+  /**
+   * Deterministic read/write interleaving, cheaper than drawing a random number per operation.
+   */
+  @State(Scope.Thread)
+  public static class Operations {
+
+    private int tick;
+
+    boolean nextIsRead(int readPercent) {
+      if (++tick == 100) {
+        tick = 0;
+      }
+      return tick < readPercent;
+    }
+
+  }
+
+}
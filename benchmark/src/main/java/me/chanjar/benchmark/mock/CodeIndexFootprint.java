@@ -0,0 +1,83 @@
+package me.chanjar.benchmark.mock;
+
+import me.chanjar.common.FrontCodedCodeIndex;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Heap retained by a {@code HashSet<String>} of codes versus a {@link FrontCodedCodeIndex} of the same codes,
+ * measured as used heap after GC. Not a JMH benchmark, run it on its own with enough heap for the hash set:
+ * <pre>
+ * java -Xmx4g -cp benchmark/target/benchmarks.jar me.chanjar.benchmark.mock.CodeIndexFootprint 1000000 10000000
+ * </pre>
+ */
+public class CodeIndexFootprint {
+
+  private static final String[] PREFIXES = {
+      "CN-SH-WAREHOUSE-", "CN-BJ-WAREHOUSE-", "CN-GZ-WAREHOUSE-", "CN-SZ-WAREHOUSE-",
+      "US-NY-STORE-", "US-SF-STORE-", "DE-BE-DEPOT-", "JP-TK-DEPOT-"
+  };
+
+  public static void main(String[] args) throws InterruptedException {
+    String[] sizes = args.length > 0 ? args : new String[] { "1000000", "10000000" };
+    System.out.println("codes       structure   retained MB   bytes/code");
+    for (String size : sizes) {
+      int count = Integer.parseInt(size);
+
+      long base = usedAfterGc();
+      Set<String> set = new HashSet<>();
+      for (int i = 0; i < count; i++) {
+        set.add(code(i));
+      }
+      print(count, "HashSet", usedAfterGc() - base);
+      // keeps the set reachable until it was measured
+      check(count, set.size());
+      set = null;
+
+      base = usedAfterGc();
+      FrontCodedCodeIndex.Builder builder = new FrontCodedCodeIndex.Builder();
+      for (int i = 0; i < count; i++) {
+        builder.add(code(i));
+      }
+      FrontCodedCodeIndex index = builder.build();
+      builder = null;
+      print(count, "FrontCoded", usedAfterGc() - base);
+      check(count, index.size());
+    }
+  }
+
+  private static void check(int count, int size) {
+    if (size != count) {
+      throw new IllegalStateException(size + " codes instead of " + count);
+    }
+  }
+
+  /**
+   * Codes of a typical catalogue: a handful of long prefixes and a zero padded number.
+   */
+  static String code(int i) {
+    String number = Integer.toString(i);
+    StringBuilder code = new StringBuilder(32).append(PREFIXES[i % PREFIXES.length]);
+    for (int padding = number.length(); padding < 10; padding++) {
+      code.append('0');
+    }
+    return code.append(number).toString();
+  }
+
+  private static void print(int count, String structure, long bytes) {
+    System.out.println(String.format(Locale.ROOT, "%-11d %-11s %11.1f %12.1f", count, structure,
+        bytes / 1048576.0, (double) bytes / count));
+  }
+
+  private static long usedAfterGc() throws InterruptedException {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+      Thread.sleep(100);
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+}
@@ -0,0 +1,116 @@
+package me.chanjar.benchmark.mock;
+
+import me.chanjar.common.Bar;
+import me.chanjar.common.FooImpl;
+import me.chanjar.common.RefreshPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * {@link FooImpl#findSimilarCodes(String, int)} over a snapshot of random codes, queried with one or two typos
+ * of existing codes. The setup waits until the n-gram index is built.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SimilarCodesBenchmark {
+
+  private static final String ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ0123456789";
+
+  private static final int QUERIES = 1024;
+
+  @Param({ "1000000" })
+  private int codes;
+
+  @Param({ "1", "2" })
+  private int maxDistance;
+
+  private final ForkJoinPool pool = new ForkJoinPool();
+
+  private FooImpl foo;
+
+  private String[] queries;
+
+  @Setup
+  public void setup() {
+    foo = new FooImpl();
+    foo.setRefreshPolicy(RefreshPolicy.MANUAL);
+    foo.setCompactIndex(true);
+    foo.setBar(new Bar() {
+      @Override
+      public Set<String> getAllCodes() {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Stream<String> streamCodes() {
+        return IntStream.range(0, codes).mapToObj(SimilarCodesBenchmark::code);
+      }
+    });
+    foo.setForkJoinPool(pool);
+    // starts building the n-gram index
+    foo.findSimilarCodes(code(0), maxDistance);
+    pool.awaitQuiescence(10, TimeUnit.MINUTES);
+
+    Random random = new Random(1);
+    queries = new String[QUERIES];
+    for (int i = 0; i < QUERIES; i++) {
+      char[] query = code(random.nextInt(codes)).toCharArray();
+      for (int typo = 0; typo < maxDistance; typo++) {
+        query[4 + random.nextInt(query.length - 4)] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+      }
+      queries[i] = new String(query);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public List<String> findSimilarCodes(Queries next) {
+    return foo.findSimilarCodes(queries[next.index()], maxDistance);
+  }
+
+  /**
+   * Random codes like {@code SKU-7GQ2M9XK}, the same for the same number.
+   */
+  static String code(int i) {
+    Random random = new Random(i * 0x9E3779B97F4A7C15L);
+    StringBuilder code = new StringBuilder("SKU-");
+    for (int j = 0; j < 8; j++) {
+      code.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+    }
+    return code.toString();
+  }
+
+  @State(Scope.Thread)
+  public static class Queries {
+
+    private int next;
+
+    int index() {
+      next = (next + 1) & (QUERIES - 1);
+      return next;
+    }
+
+  }
+
+}
@@ -1,9 +1,37 @@
 package me.chanjar.common;
 
 import java.util.Set;
+import java.util.stream.Stream;
 
 public interface Bar {
 
   Set<String> getAllCodes();
 
+  /**
+   * The same codes as {@link #getAllCodes()}, one at a time. Implementations backed by a database or a file should
+   * override it to read incrementally, so that the whole set never has to be on the heap; the stream is closed
+   * by the caller.
+   */
+  default Stream<String> streamCodes() {
+    return getAllCodes().stream();
+  }
+
+  /**
+   * Version of {@link #getAllCodes()}, changes whenever the codes do. Negative if not tracked, then
+   * {@link RefreshPolicy#VERSION} loads all codes again each time the refresh interval is over, like
+   * {@link RefreshPolicy#TTL}.
+   */
+  default long currentVersion() {
+    return -1;
+  }
+
+  /**
+   * @param version a version returned by {@link #currentVersion()}
+   * @return the changes from {@code version} to now, {@code null} if they are not known, e.g. not tracked at all or
+   * not kept that long, then the caller loads all codes again
+   */
+  default CodeChanges changesSince(long version) {
+    return null;
+  }
+
 }
@@ -0,0 +1,120 @@
+package me.chanjar.common;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of strings sized for an expected number of codes and false positive probability. Bits live in an
+ * {@link AtomicLongArray}, so {@link #put(String)} is safe while other threads call {@link #mightContain(String)}.
+ * <p>
+ * The k bit positions come from one 64 bit hash split in two halves, combined as {@code h1 + i * h2}.
+ */
+public final class BloomFilter {
+
+  private final AtomicLongArray words;
+
+  private final long bitSize;
+
+  private final int hashFunctions;
+
+  private final double expectedFpp;
+
+  private BloomFilter(long bitSize, int hashFunctions, double expectedFpp) {
+    this.words = new AtomicLongArray((int) ((bitSize + 63) >>> 6));
+    this.bitSize = (long) words.length() << 6;
+    this.hashFunctions = hashFunctions;
+    this.expectedFpp = expectedFpp;
+  }
+
+  /**
+   * @param expectedInsertions number of strings the filter is sized for
+   * @param fpp                false positive probability at that size, in (0, 1)
+   */
+  public static BloomFilter create(int expectedInsertions, double fpp) {
+    if (fpp <= 0 || fpp >= 1) {
+      throw new IllegalArgumentException("fpp must be in (0, 1): " + fpp);
+    }
+    long n = Math.max(1, expectedInsertions);
+    long bits = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+    if (bits > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Too many bits for " + expectedInsertions + " insertions at " + fpp);
+    }
+    int k = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+    return new BloomFilter(bits, k, fpp);
+  }
+
+  public void put(String value) {
+    long hash = hash(value);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashFunctions; i++) {
+      long bit = index(h1 + i * h2);
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long current;
+      do {
+        current = words.get(word);
+      } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+    }
+  }
+
+  /**
+   * @return {@code false} if {@code value} was definitely never put, {@code true} if it probably was
+   */
+  public boolean mightContain(String value) {
+    long hash = hash(value);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashFunctions; i++) {
+      long bit = index(h1 + i * h2);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public long bitSize() {
+    return bitSize;
+  }
+
+  public int hashFunctions() {
+    return hashFunctions;
+  }
+
+  /**
+   * The false positive probability the filter was sized for.
+   */
+  public double expectedFpp() {
+    return expectedFpp;
+  }
+
+  /**
+   * Size of the bit array in bytes.
+   */
+  public long memoryBytes() {
+    return bitSize >>> 3;
+  }
+
+  private long index(int combined) {
+    // non-negative, then into [0, bitSize)
+    return (combined & 0x7fffffffL) % bitSize;
+  }
+
+  /**
+   * 64 bit FNV-1a over the chars, with a murmur3 finalizer to spread the bits over both halves.
+   */
+  static long hash(String value) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      h ^= value.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+}
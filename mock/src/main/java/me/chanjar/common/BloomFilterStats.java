@@ -0,0 +1,66 @@
+package me.chanjar.common;
+
+/**
+ * How well the Bloom filter stage of {@link FooImpl} did for the current snapshot.
+ */
+public class BloomFilterStats {
+
+  private final double expectedFpp;
+
+  private final long negatives;
+
+  private final long falsePositives;
+
+  private final long memoryBytes;
+
+  private final int hashFunctions;
+
+  BloomFilterStats(double expectedFpp, long negatives, long falsePositives, long memoryBytes, int hashFunctions) {
+    this.expectedFpp = expectedFpp;
+    this.negatives = negatives;
+    this.falsePositives = falsePositives;
+    this.memoryBytes = memoryBytes;
+    this.hashFunctions = hashFunctions;
+  }
+
+  public double getExpectedFpp() {
+    return expectedFpp;
+  }
+
+  /**
+   * Checks of new codes answered by the filter alone.
+   */
+  public long getNegatives() {
+    return negatives;
+  }
+
+  /**
+   * Checks of new codes the filter let through to the full set.
+   */
+  public long getFalsePositives() {
+    return falsePositives;
+  }
+
+  /**
+   * Share of new codes the filter let through, 0 before any was checked.
+   */
+  public double getMeasuredFpp() {
+    long newCodes = negatives + falsePositives;
+    return newCodes == 0 ? 0 : (double) falsePositives / newCodes;
+  }
+
+  public long getMemoryBytes() {
+    return memoryBytes;
+  }
+
+  public int getHashFunctions() {
+    return hashFunctions;
+  }
+
+  @Override
+  public String toString() {
+    return "BloomFilterStats{expectedFpp=" + expectedFpp + ", measuredFpp=" + getMeasuredFpp() + ", negatives="
+        + negatives + ", falsePositives=" + falsePositives + ", memoryBytes=" + memoryBytes + '}';
+  }
+
+}
@@ -0,0 +1,42 @@
+package me.chanjar.common;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Net changes of {@link Bar}'s codes between two versions: a code is either added or removed, not both.
+ */
+public final class CodeChanges {
+
+  private final long version;
+
+  private final Collection<String> added;
+
+  private final Collection<String> removed;
+
+  /**
+   * @param version the version the changes lead to
+   */
+  public CodeChanges(long version, Collection<String> added, Collection<String> removed) {
+    this.version = version;
+    this.added = Collections.unmodifiableCollection(added);
+    this.removed = Collections.unmodifiableCollection(removed);
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public Collection<String> getAdded() {
+    return added;
+  }
+
+  public Collection<String> getRemoved() {
+    return removed;
+  }
+
+  public int size() {
+    return added.size() + removed.size();
+  }
+
+}
@@ -0,0 +1,21 @@
+package me.chanjar.common;
+
+import java.util.function.Consumer;
+
+/**
+ * Read-only set of codes a {@link FooImpl} snapshot checks against.
+ */
+public interface CodeIndex {
+
+  boolean contains(String code);
+
+  int size();
+
+  /**
+   * @param ordinal from 0 to {@link #size()} - 1, codes are visited by {@link #forEach(Consumer)} in ordinal order
+   */
+  String get(int ordinal);
+
+  void forEach(Consumer<String> action);
+
+}
@@ -0,0 +1,196 @@
+package me.chanjar.common;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * {@link CodeIndex} of {@link Bar#streamCodes()} and the version it was loaded at, optionally with a
+ * {@link BloomFilter} in front of a {@link FrontCodedCodeIndex}.
+ * <p>
+ * The index itself is read-only, {@link CodeChanges} are applied in place to small concurrent sets of codes added
+ * and removed since it was built, so that their cost depends on the size of the change only. Readers may see a
+ * change half applied, each code is either in its old or its new state.
+ */
+final class CodeSnapshot {
+
+  private final CodeIndex codes;
+
+  private final long version;
+
+  private final long checkedAt;
+
+  private final BloomFilter bloomFilter;
+
+  private final LongAdder negatives;
+
+  private final LongAdder falsePositives;
+
+  private final Set<String> added;
+
+  private final Set<String> removed;
+
+  private final AtomicReference<CompletableFuture<NgramIndex>> ngramIndex;
+
+  private CodeSnapshot(CodeIndex codes, long version, long checkedAt, BloomFilter bloomFilter,
+      LongAdder negatives, LongAdder falsePositives, Set<String> added, Set<String> removed,
+      AtomicReference<CompletableFuture<NgramIndex>> ngramIndex) {
+    this.codes = codes;
+    this.version = version;
+    this.checkedAt = checkedAt;
+    this.bloomFilter = bloomFilter;
+    this.negatives = negatives;
+    this.falsePositives = falsePositives;
+    this.added = added;
+    this.removed = removed;
+    this.ngramIndex = ngramIndex;
+  }
+
+  /**
+   * @param compact        {@link FrontCodedCodeIndex} instead of a hash set
+   * @param bloomFilterFpp false positive probability of the Bloom filter, 0 for none. Ignored for a hash set,
+   *                       whose single lookup is cheaper than the filter's hashes and probes
+   */
+  static CodeSnapshot of(Stream<String> source, long version, long now, boolean compact, double bloomFilterFpp) {
+    CodeIndex codes = compact ? FrontCodedCodeIndex.of(source) : HashCodeIndex.of(source);
+    BloomFilter bloomFilter = null;
+    if (compact && bloomFilterFpp > 0) {
+      bloomFilter = BloomFilter.create(codes.size(), bloomFilterFpp);
+      codes.forEach(bloomFilter::put);
+    }
+    return new CodeSnapshot(codes, version, now, bloomFilter, new LongAdder(), new LongAdder(),
+        ConcurrentHashMap.newKeySet(), ConcurrentHashMap.newKeySet(), new AtomicReference<>());
+  }
+
+  boolean contains(String code) {
+    if (bloomFilter == null) {
+      return indexContains(code);
+    }
+    if (!bloomFilter.mightContain(code)) {
+      negatives.increment();
+      return false;
+    }
+    if (indexContains(code)) {
+      return true;
+    }
+    falsePositives.increment();
+    return false;
+  }
+
+  private boolean indexContains(String code) {
+    return !removed.contains(code) && (codes.contains(code) || added.contains(code));
+  }
+
+  /**
+   * Whether {@code changes} are better applied than loading all codes again: the changes since the index was
+   * built stay under an eighth of its size, so lookups are still answered mostly by the index. Small indexes
+   * take up to 1024 changed codes regardless, reloading them costs about as much as the overlay.
+   */
+  boolean canApply(CodeChanges changes) {
+    return added.size() + removed.size() + changes.size() <= Math.max(1024, codes.size() / 8);
+  }
+
+  /**
+   * Applies {@code changes} in place, the result carries their version. New codes go into the Bloom filter
+   * before they become visible, removed ones stay in it as false positives.
+   */
+  CodeSnapshot apply(CodeChanges changes, long now) {
+    for (String code : changes.getRemoved()) {
+      if (codes.contains(code)) {
+        removed.add(code);
+      }
+      added.remove(code);
+    }
+    for (String code : changes.getAdded()) {
+      if (bloomFilter != null) {
+        bloomFilter.put(code);
+      }
+      if (!codes.contains(code)) {
+        added.add(code);
+      }
+      removed.remove(code);
+    }
+    return new CodeSnapshot(codes, changes.getVersion(), now, bloomFilter, negatives, falsePositives, added,
+        removed, ngramIndex);
+  }
+
+  /**
+   * Codes within {@code maxDistance} edits of {@code query}. The first call starts building the {@link NgramIndex}
+   * over the index on {@code executor}, until it is done every code is compared. The n-gram index is shared by the
+   * snapshots of later changes, codes added by those are compared one by one.
+   */
+  List<String> findSimilar(String query, int maxDistance, Executor executor) {
+    SimilarCodes similar = new SimilarCodes(query, maxDistance, removed);
+    NgramIndex index = ngramIndex(executor);
+    if (index != null) {
+      index.findSimilar(similar);
+    } else {
+      codes.forEach(similar::check);
+    }
+    added.forEach(similar::check);
+    return similar.toList();
+  }
+
+  /**
+   * @return {@code null} while it is being built
+   */
+  private NgramIndex ngramIndex(Executor executor) {
+    CompletableFuture<NgramIndex> building = ngramIndex.get();
+    if (building == null) {
+      CompletableFuture<NgramIndex> started = new CompletableFuture<>();
+      if (ngramIndex.compareAndSet(null, started)) {
+        executor.execute(() -> {
+          try {
+            started.complete(NgramIndex.of(codes));
+          } catch (RuntimeException | Error e) {
+            // let the next call try again
+            ngramIndex.compareAndSet(started, null);
+            started.completeExceptionally(e);
+          }
+        });
+      }
+      return null;
+    }
+    return building.isCompletedExceptionally() ? null : building.getNow(null);
+  }
+
+  CodeIndex index() {
+    return codes;
+  }
+
+  long version() {
+    return version;
+  }
+
+  /**
+   * When the snapshot was loaded or last found up to date, in clock nanos.
+   */
+  long checkedAt() {
+    return checkedAt;
+  }
+
+  /**
+   * The same codes, found up to date at {@code now}.
+   */
+  CodeSnapshot checked(long now) {
+    return new CodeSnapshot(codes, version, now, bloomFilter, negatives, falsePositives, added, removed,
+        ngramIndex);
+  }
+
+  /**
+   * @return {@code null} without a Bloom filter
+   */
+  BloomFilterStats bloomFilterStats() {
+    if (bloomFilter == null) {
+      return null;
+    }
+    return new BloomFilterStats(bloomFilter.expectedFpp(), negatives.sum(), falsePositives.sum(),
+        bloomFilter.memoryBytes(), bloomFilter.hashFunctions());
+  }
+
+}
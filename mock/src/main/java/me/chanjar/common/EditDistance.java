@@ -0,0 +1,60 @@
+package me.chanjar.common;
+
+/**
+ * Levenshtein distance limited to a maximum, computing only the diagonal band of width {@code 2 * max + 1}.
+ */
+final class EditDistance {
+
+  private EditDistance() {
+  }
+
+  /**
+   * @return the edit distance of {@code a} and {@code b}, or {@code max + 1} if it is greater than {@code max}
+   */
+  static int bounded(String a, String b, int max) {
+    if (Math.abs(a.length() - b.length()) > max) {
+      return max + 1;
+    }
+    if (a.length() > b.length()) {
+      String swap = a;
+      a = b;
+      b = swap;
+    }
+    int n = a.length();
+    int m = b.length();
+    int outside = max + 1;
+    int[] previous = new int[n + 1];
+    int[] current = new int[n + 1];
+    for (int i = 0; i <= n; i++) {
+      previous[i] = i <= max ? i : outside;
+    }
+
+    for (int j = 1; j <= m; j++) {
+      int from = Math.max(1, j - max);
+      int to = Math.min(n, j + max);
+      current[0] = j <= max ? j : outside;
+      if (from > 1) {
+        current[from - 1] = outside;
+      }
+      int rowMin = current[0];
+      char bj = b.charAt(j - 1);
+      for (int i = from; i <= to; i++) {
+        int cost = a.charAt(i - 1) == bj ? 0 : 1;
+        int distance = Math.min(previous[i - 1] + cost, Math.min(previous[i], current[i - 1]) + 1);
+        current[i] = Math.min(distance, outside);
+        rowMin = Math.min(rowMin, current[i]);
+      }
+      if (to < n) {
+        current[to + 1] = outside;
+      }
+      if (rowMin > max) {
+        return outside;
+      }
+      int[] swap = previous;
+      previous = current;
+      current = swap;
+    }
+    return Math.min(previous[n], outside);
+  }
+
+}
@@ -1,7 +1,22 @@
 package me.chanjar.common;
 
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
 public interface Foo {
 
   boolean checkCodeDuplicate(String code);
 
+  /**
+   * @return bit {@code i} set if the {@code i}-th code in iteration order is a duplicate
+   */
+  BitSet checkCodeDuplicates(Collection<String> codes);
+
+  /**
+   * @return codes at most {@code maxDistance} insertions, deletions or substitutions away from {@code code},
+   * closest first; {@code code} itself if it exists
+   */
+  List<String> findSimilarCodes(String code, int maxDistance);
+
 }
@@ -3,14 +3,200 @@ package me.chanjar.common;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Checks codes against {@link Bar#getAllCodes()}, by default on every call. With a {@link RefreshPolicy} other
+ * than {@link RefreshPolicy#NONE} it keeps a read-only snapshot of {@link Bar#streamCodes()} behind a volatile
+ * reference, so a check is one hash lookup. Once the snapshot is due one caller reloads it while the others keep
+ * reading the old one; only the very first load and the one after {@link #invalidate()} make callers wait.
+ * <p>
+ * The snapshot is a hash set, or a {@link FrontCodedCodeIndex} a fraction of its size, which can also have a
+ * {@link BloomFilter} in front of it that answers most checks of new codes without a binary search. With
+ * {@link RefreshPolicy#VERSION} it is kept up to date by {@link Bar#changesSince(long)} where possible.
+ */
 @Component
 public class FooImpl implements Foo {
 
+  /**
+   * Batches up to this size are checked on the calling thread, larger ones split in slices of at most this size.
+   */
+  static final int PARALLEL_THRESHOLD = 1 << 13;
+
+  private final AtomicBoolean refreshing = new AtomicBoolean();
+
+  private final Object loadLock = new Object();
+
+  private final Object publishLock = new Object();
+
   private Bar bar;
 
+  private volatile RefreshPolicy refreshPolicy = RefreshPolicy.NONE;
+
+  private volatile long refreshIntervalNanos = TimeUnit.MINUTES.toNanos(1);
+
+  private volatile boolean compactIndex;
+
+  private volatile double bloomFilterFpp;
+
+  private volatile CodeSnapshot snapshot;
+
+  /**
+   * Incremented by {@link #invalidate()}, a load or refresh started before that does not publish its snapshot.
+   */
+  private volatile long generation;
+
+  private LongSupplier clock = System::nanoTime;
+
+  private ForkJoinPool forkJoinPool = ForkJoinPool.commonPool();
+
   @Override
   public boolean checkCodeDuplicate(String code) {
-    return bar.getAllCodes().contains(code);
+    if (refreshPolicy == RefreshPolicy.NONE) {
+      return bar.getAllCodes().contains(code);
+    }
+    return currentSnapshot().contains(code);
+  }
+
+  /**
+   * Fetches the codes, or the snapshot, once for the whole batch.
+   */
+  @Override
+  public BitSet checkCodeDuplicates(Collection<String> codes) {
+    Predicate<String> duplicate;
+    if (refreshPolicy == RefreshPolicy.NONE) {
+      Set<String> allCodes = bar.getAllCodes();
+      duplicate = allCodes::contains;
+    } else {
+      CodeSnapshot current = currentSnapshot();
+      duplicate = current::contains;
+    }
+
+    String[] batch = codes.toArray(new String[codes.size()]);
+    long[] words = new long[(batch.length + 63) >>> 6];
+    CheckTask task = new CheckTask(batch, duplicate, words, 0, batch.length);
+    if (batch.length <= PARALLEL_THRESHOLD) {
+      task.compute();
+    } else {
+      forkJoinPool.invoke(task);
+    }
+    return BitSet.valueOf(words);
+  }
+
+  /**
+   * With a snapshot candidates come from an n-gram index, see {@link NgramIndex}, that the first call starts
+   * building in the fork-join pool; until it is ready, and without a snapshot, every code is compared.
+   */
+  @Override
+  public List<String> findSimilarCodes(String code, int maxDistance) {
+    if (maxDistance < 0) {
+      throw new IllegalArgumentException("maxDistance must not be negative: " + maxDistance);
+    }
+    if (refreshPolicy == RefreshPolicy.NONE) {
+      SimilarCodes similar = new SimilarCodes(code, maxDistance, Collections.emptySet());
+      bar.getAllCodes().forEach(similar::check);
+      return similar.toList();
+    }
+    return currentSnapshot().findSimilar(code, maxDistance, forkJoinPool);
+  }
+
+  /**
+   * Drops the snapshot, the next check loads a new one.
+   */
+  public void invalidate() {
+    synchronized (publishLock) {
+      generation++;
+      snapshot = null;
+    }
+  }
+
+  /**
+   * @return {@code null} unless there is a compact snapshot with a Bloom filter
+   */
+  public BloomFilterStats getBloomFilterStats() {
+    CodeSnapshot current = snapshot;
+    return current == null ? null : current.bloomFilterStats();
+  }
+
+  CodeSnapshot currentSnapshot() {
+    long loadedGeneration = generation;
+    CodeSnapshot current = snapshot;
+    if (current == null) {
+      return load();
+    }
+    if (isDue(current) && refreshing.compareAndSet(false, true)) {
+      try {
+        current = refresh(current);
+        publish(loadedGeneration, current);
+      } finally {
+        refreshing.set(false);
+      }
+    }
+    return current;
+  }
+
+  private CodeSnapshot load() {
+    synchronized (loadLock) {
+      long loadedGeneration = generation;
+      CodeSnapshot current = snapshot;
+      if (current == null) {
+        current = newSnapshot(bar.currentVersion(), clock.getAsLong());
+        publish(loadedGeneration, current);
+      }
+      return current;
+    }
+  }
+
+  /**
+   * Installs {@code loaded} unless {@link #invalidate()} was called since {@code loadedGeneration} was read. The
+   * caller still uses {@code loaded}, its check began before the invalidation.
+   */
+  private void publish(long loadedGeneration, CodeSnapshot loaded) {
+    synchronized (publishLock) {
+      if (generation == loadedGeneration) {
+        snapshot = loaded;
+      }
+    }
+  }
+
+  private boolean isDue(CodeSnapshot current) {
+    RefreshPolicy policy = refreshPolicy;
+    return (policy == RefreshPolicy.TTL || policy == RefreshPolicy.VERSION)
+        && clock.getAsLong() - current.checkedAt() >= refreshIntervalNanos;
+  }
+
+  private CodeSnapshot refresh(CodeSnapshot current) {
+    long now = clock.getAsLong();
+    // read the version before the codes, a change in between only causes one more reload
+    long version = bar.currentVersion();
+    if (refreshPolicy == RefreshPolicy.VERSION && version >= 0 && current.version() >= 0) {
+      if (version == current.version()) {
+        return current.checked(now);
+      }
+      CodeChanges changes = bar.changesSince(current.version());
+      // changes that do not reach the version read above would leave the snapshot behind
+      if (changes != null && changes.getVersion() >= version && current.canApply(changes)) {
+        return current.apply(changes, now);
+      }
+    }
+    return newSnapshot(version, now);
+  }
+
+  private CodeSnapshot newSnapshot(long version, long now) {
+    try (Stream<String> codes = bar.streamCodes()) {
+      return CodeSnapshot.of(codes, version, now, compactIndex, bloomFilterFpp);
+    }
   }
 
   @Autowired
@@ -18,4 +204,89 @@ public class FooImpl implements Foo {
     this.bar = bar;
   }
 
+  public void setRefreshPolicy(RefreshPolicy refreshPolicy) {
+    this.refreshPolicy = refreshPolicy;
+  }
+
+  /**
+   * How long a snapshot is used before {@link RefreshPolicy#TTL} reloads it or {@link RefreshPolicy#VERSION}
+   * checks its version, 1 minute by default.
+   */
+  public void setRefreshInterval(long refreshInterval, TimeUnit unit) {
+    this.refreshIntervalNanos = unit.toNanos(refreshInterval);
+  }
+
+  /**
+   * Whether snapshots are {@link FrontCodedCodeIndex}es instead of hash sets, takes effect with the next snapshot.
+   */
+  public void setCompactIndex(boolean compactIndex) {
+    this.compactIndex = compactIndex;
+  }
+
+  /**
+   * False positive probability of a Bloom filter built with each snapshot, 0 (the default) for none. Needs a
+   * {@link RefreshPolicy} other than {@link RefreshPolicy#NONE} and {@link #setCompactIndex(boolean) the compact
+   * index}, a hash set is not worth filtering. Takes effect with the next snapshot.
+   */
+  public void setBloomFilterFpp(double bloomFilterFpp) {
+    if (bloomFilterFpp < 0 || bloomFilterFpp >= 1) {
+      throw new IllegalArgumentException("bloomFilterFpp must be in [0, 1): " + bloomFilterFpp);
+    }
+    this.bloomFilterFpp = bloomFilterFpp;
+  }
+
+  /**
+   * Pool for batches larger than {@link #PARALLEL_THRESHOLD} and for building n-gram indexes, the common pool by
+   * default.
+   */
+  public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+    this.forkJoinPool = forkJoinPool;
+  }
+
+  void setClock(LongSupplier clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Checks {@code [from, to)} of the batch. Slices are split at multiples of 64, so every task writes whole words
+   * of the result that no other task touches.
+   */
+  private static class CheckTask extends RecursiveAction {
+
+    private final String[] batch;
+
+    private final Predicate<String> duplicate;
+
+    private final long[] words;
+
+    private final int from;
+
+    private final int to;
+
+    private CheckTask(String[] batch, Predicate<String> duplicate, long[] words, int from, int to) {
+      this.batch = batch;
+      this.duplicate = duplicate;
+      this.words = words;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > PARALLEL_THRESHOLD) {
+        int middle = (from + (to - from) / 2) & ~63;
+        invokeAll(new CheckTask(batch, duplicate, words, from, middle),
+            new CheckTask(batch, duplicate, words, middle, to));
+        return;
+      }
+      for (int i = from; i < to; i++) {
+        String code = batch[i];
+        if (code != null && duplicate.test(code)) {
+          words[i >>> 6] |= 1L << i;
+        }
+      }
+    }
+
+  }
+
 }
@@ -0,0 +1,389 @@
+package me.chanjar.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Codes as sorted UTF-8 byte strings in one byte array, front coded in blocks of {@link #BLOCK_SIZE}: the first
+ * code of a block is stored whole, each following one as the length of the prefix it shares with its predecessor
+ * plus the rest of its bytes. Codes sharing long prefixes take a few bytes each and there is no object per code.
+ * <p>
+ * A lookup binary searches the first codes of the blocks, then decodes one block, so it costs
+ * O(log(n / {@value #BLOCK_SIZE}) * length + {@value #BLOCK_SIZE} * length).
+ */
+public final class FrontCodedCodeIndex implements CodeIndex {
+
+  static final int BLOCK_SIZE = 16;
+
+  private static final ThreadLocal<byte[]> KEY_BUFFER = ThreadLocal.withInitial(() -> new byte[64]);
+
+  private final byte[] data;
+
+  private final int[] blocks;
+
+  private final int size;
+
+  private final int maxLength;
+
+  private FrontCodedCodeIndex(byte[] data, int[] blocks, int size, int maxLength) {
+    this.data = data;
+    this.blocks = blocks;
+    this.size = size;
+    this.maxLength = maxLength;
+  }
+
+  public static FrontCodedCodeIndex of(Stream<String> source) {
+    Builder builder = new Builder();
+    source.forEach(builder::add);
+    return builder.build();
+  }
+
+  @Override
+  public boolean contains(String code) {
+    if (size == 0 || code.length() > maxLength) {
+      return false;
+    }
+    byte[] key = keyBuffer(code.length());
+    int keyLength = encode(code, key);
+    if (keyLength > maxLength) {
+      return false;
+    }
+
+    // the last block whose first code is <= key
+    int low = 0;
+    int high = blocks.length - 1;
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      int position = blocks[middle];
+      int length = readVarInt(position + 1);
+      if (compare(data, position + 1 + varIntSize(length), length, key, keyLength) <= 0) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+
+    // codes only differ from their predecessor after the shared prefix, so they are compared from there on
+    int matched = 0;
+    int position = blocks[low];
+    int end = low + 1 < blocks.length ? blocks[low + 1] : data.length;
+    while (position < end) {
+      int shared = readVarInt(position);
+      position += varIntSize(shared);
+      int suffix = readVarInt(position);
+      position += varIntSize(suffix);
+      if (shared < matched) {
+        // greater than its predecessor where that one still matched the key
+        return false;
+      }
+      if (shared == matched) {
+        int common = Math.min(suffix, keyLength - matched);
+        int difference = 0;
+        int i = 0;
+        while (i < common && (difference = (data[position + i] & 0xff) - (key[matched + i] & 0xff)) == 0) {
+          i++;
+        }
+        matched += i;
+        if (i == common) {
+          difference = shared + suffix - keyLength;
+        }
+        if (difference == 0) {
+          return true;
+        }
+        if (difference > 0) {
+          return false;
+        }
+      }
+      position += suffix;
+    }
+    return false;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Decodes the code's block up to it.
+   */
+  @Override
+  public String get(int ordinal) {
+    if (ordinal < 0 || ordinal >= size) {
+      throw new IndexOutOfBoundsException("ordinal " + ordinal + " of " + size);
+    }
+    byte[] current = new byte[maxLength];
+    int position = blocks[ordinal / BLOCK_SIZE];
+    int length = 0;
+    for (int i = ordinal % BLOCK_SIZE; i >= 0; i--) {
+      int shared = readVarInt(position);
+      position += varIntSize(shared);
+      int suffix = readVarInt(position);
+      position += varIntSize(suffix);
+      System.arraycopy(data, position, current, shared, suffix);
+      position += suffix;
+      length = shared + suffix;
+    }
+    return new String(current, 0, length, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public void forEach(Consumer<String> action) {
+    byte[] current = new byte[maxLength];
+    int position = 0;
+    while (position < data.length) {
+      int shared = readVarInt(position);
+      position += varIntSize(shared);
+      int suffix = readVarInt(position);
+      position += varIntSize(suffix);
+      System.arraycopy(data, position, current, shared, suffix);
+      position += suffix;
+      action.accept(new String(current, 0, shared + suffix, StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Bytes held by the index arrays.
+   */
+  public long memoryBytes() {
+    return data.length + 4L * blocks.length;
+  }
+
+  private int readVarInt(int position) {
+    int value = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = data[position++];
+      value |= (b & 0x7f) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+  }
+
+  private static int varIntSize(int value) {
+    int size = 1;
+    while ((value >>>= 7) != 0) {
+      size++;
+    }
+    return size;
+  }
+
+  /**
+   * Unsigned comparison of {@code bytes[from, from + length)} with {@code key[0, keyLength)}.
+   */
+  private static int compare(byte[] bytes, int from, int length, byte[] key, int keyLength) {
+    int common = Math.min(length, keyLength);
+    for (int i = 0; i < common; i++) {
+      int difference = (bytes[from + i] & 0xff) - (key[i] & 0xff);
+      if (difference != 0) {
+        return difference;
+      }
+    }
+    return length - keyLength;
+  }
+
+  /**
+   * A per thread buffer that holds the UTF-8 bytes of {@code chars} characters.
+   */
+  private static byte[] keyBuffer(int chars) {
+    byte[] buffer = KEY_BUFFER.get();
+    if (buffer.length < 3 * chars) {
+      buffer = new byte[Math.max(3 * chars, 2 * buffer.length)];
+      KEY_BUFFER.set(buffer);
+    }
+    return buffer;
+  }
+
+  /**
+   * Writes the same bytes as {@code code.getBytes(UTF_8)}, unpaired surrogates become {@code '?'}.
+   *
+   * @return the number of bytes written
+   */
+  static int encode(String code, byte[] buffer) {
+    int length = 0;
+    for (int i = 0; i < code.length(); i++) {
+      char c = code.charAt(i);
+      if (c < 0x80) {
+        buffer[length++] = (byte) c;
+      } else if (c < 0x800) {
+        buffer[length++] = (byte) (0xc0 | c >> 6);
+        buffer[length++] = (byte) (0x80 | c & 0x3f);
+      } else if (Character.isHighSurrogate(c) && i + 1 < code.length()
+          && Character.isLowSurrogate(code.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, code.charAt(++i));
+        buffer[length++] = (byte) (0xf0 | codePoint >> 18);
+        buffer[length++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+        buffer[length++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+        buffer[length++] = (byte) (0x80 | codePoint & 0x3f);
+      } else if (Character.isSurrogate(c)) {
+        buffer[length++] = '?';
+      } else {
+        buffer[length++] = (byte) (0xe0 | c >> 12);
+        buffer[length++] = (byte) (0x80 | c >> 6 & 0x3f);
+        buffer[length++] = (byte) (0x80 | c & 0x3f);
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Collects codes as UTF-8 bytes in one growing array, then sorts their offsets and writes the index. Duplicates
+   * are dropped.
+   */
+  public static final class Builder {
+
+    private byte[] bytes = new byte[1 << 16];
+
+    private int[] starts = new int[1 << 10];
+
+    private int count;
+
+    private int length;
+
+    public Builder add(String code) {
+      byte[] utf8 = code.getBytes(StandardCharsets.UTF_8);
+      if (length + utf8.length > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(length + utf8.length, bytes.length + (bytes.length >> 1)));
+      }
+      if (count + 1 >= starts.length) {
+        starts = Arrays.copyOf(starts, starts.length + (starts.length >> 1));
+      }
+      System.arraycopy(utf8, 0, bytes, length, utf8.length);
+      length += utf8.length;
+      starts[count++] = length - utf8.length;
+      starts[count] = length;
+      return this;
+    }
+
+    public FrontCodedCodeIndex build() {
+      int[] order = new int[count];
+      for (int i = 0; i < count; i++) {
+        order[i] = i;
+      }
+      sort(order, new int[count], 0, count);
+
+      Output out = new Output(length / 2 + 16);
+      int[] blocks = new int[(count + BLOCK_SIZE - 1) / BLOCK_SIZE];
+      int size = 0;
+      int maxLength = 0;
+      int previous = -1;
+      for (int entry : order) {
+        if (previous >= 0 && compareEntries(previous, entry) == 0) {
+          continue;
+        }
+        int entryLength = lengthOf(entry);
+        int shared = 0;
+        if (size % BLOCK_SIZE == 0) {
+          blocks[size / BLOCK_SIZE] = out.size;
+        } else {
+          shared = sharedPrefix(previous, entry);
+        }
+        out.writeVarInt(shared);
+        out.writeVarInt(entryLength - shared);
+        out.write(bytes, starts[entry] + shared, entryLength - shared);
+        maxLength = Math.max(maxLength, entryLength);
+        previous = entry;
+        size++;
+      }
+      return new FrontCodedCodeIndex(Arrays.copyOf(out.bytes, out.size),
+          Arrays.copyOf(blocks, (size + BLOCK_SIZE - 1) / BLOCK_SIZE), size, maxLength);
+    }
+
+    private int lengthOf(int entry) {
+      return starts[entry + 1] - starts[entry];
+    }
+
+    private int sharedPrefix(int a, int b) {
+      int common = Math.min(lengthOf(a), lengthOf(b));
+      int shared = 0;
+      while (shared < common && bytes[starts[a] + shared] == bytes[starts[b] + shared]) {
+        shared++;
+      }
+      return shared;
+    }
+
+    private int compareEntries(int a, int b) {
+      int lengthA = lengthOf(a);
+      int lengthB = lengthOf(b);
+      int common = Math.min(lengthA, lengthB);
+      for (int i = 0; i < common; i++) {
+        int difference = (bytes[starts[a] + i] & 0xff) - (bytes[starts[b] + i] & 0xff);
+        if (difference != 0) {
+          return difference;
+        }
+      }
+      return lengthA - lengthB;
+    }
+
+    /**
+     * Merge sort of entry numbers, no boxing and no comparator objects.
+     */
+    private void sort(int[] order, int[] buffer, int from, int to) {
+      if (to - from <= 16) {
+        for (int i = from + 1; i < to; i++) {
+          int entry = order[i];
+          int j = i - 1;
+          while (j >= from && compareEntries(order[j], entry) > 0) {
+            order[j + 1] = order[j];
+            j--;
+          }
+          order[j + 1] = entry;
+        }
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      sort(order, buffer, from, middle);
+      sort(order, buffer, middle, to);
+      if (compareEntries(order[middle - 1], order[middle]) <= 0) {
+        return;
+      }
+      System.arraycopy(order, from, buffer, from, to - from);
+      int left = from;
+      int right = middle;
+      for (int i = from; i < to; i++) {
+        if (right >= to || left < middle && compareEntries(buffer[left], buffer[right]) <= 0) {
+          order[i] = buffer[left++];
+        } else {
+          order[i] = buffer[right++];
+        }
+      }
+    }
+
+  }
+
+  private static final class Output {
+
+    private byte[] bytes;
+
+    private int size;
+
+    private Output(int capacity) {
+      this.bytes = new byte[capacity];
+    }
+
+    private void ensure(int extra) {
+      if (size + extra > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(size + extra, bytes.length + (bytes.length >> 1)));
+      }
+    }
+
+    private void writeVarInt(int value) {
+      ensure(5);
+      while ((value & ~0x7f) != 0) {
+        bytes[size++] = (byte) ((value & 0x7f) | 0x80);
+        value >>>= 7;
+      }
+      bytes[size++] = (byte) value;
+    }
+
+    private void write(byte[] source, int from, int length) {
+      ensure(length);
+      System.arraycopy(source, from, bytes, size, length);
+      size += length;
+    }
+
+  }
+
+}
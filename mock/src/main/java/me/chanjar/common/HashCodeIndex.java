@@ -0,0 +1,50 @@
+package me.chanjar.common;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Hash set of the codes, plus an array of the same strings for access by ordinal.
+ */
+final class HashCodeIndex implements CodeIndex {
+
+  private final Set<String> codes;
+
+  private final String[] ordered;
+
+  private HashCodeIndex(Set<String> codes) {
+    this.codes = codes;
+    this.ordered = codes.toArray(new String[codes.size()]);
+  }
+
+  static HashCodeIndex of(Stream<String> source) {
+    Set<String> codes = new HashSet<>();
+    source.forEach(codes::add);
+    return new HashCodeIndex(codes);
+  }
+
+  @Override
+  public boolean contains(String code) {
+    return codes.contains(code);
+  }
+
+  @Override
+  public int size() {
+    return ordered.length;
+  }
+
+  @Override
+  public String get(int ordinal) {
+    return ordered[ordinal];
+  }
+
+  @Override
+  public void forEach(Consumer<String> action) {
+    for (String code : ordered) {
+      action.accept(code);
+    }
+  }
+
+}
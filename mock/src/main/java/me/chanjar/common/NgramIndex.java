@@ -0,0 +1,241 @@
+package me.chanjar.common;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Inverted index from the trigrams of each code, padded with {@code n - 1} marks on both ends, to the codes
+ * containing them. Finds codes within an edit distance of a query without comparing it against every code:
+ * <ul>
+ * <li>one edit changes at most {@value #N} distinct trigrams, so a code within distance k shares at least
+ * {@code T = max(|grams(query)|, |grams(code)|) - k * N} trigrams with the query</li>
+ * <li>hence any {@code |grams(query)| - T + 1} of the query's trigrams contain a candidate, only the rarest ones
+ * are looked up (prefix filter)</li>
+ * <li>candidates are checked by length, by shared trigram count, then by a banded edit distance</li>
+ * </ul>
+ * When k is so large that the trigram bound is not positive every code of a fitting length is checked.
+ * <p>
+ * Codes are referred to by their ordinal in the {@link CodeIndex} and only decoded from it once they pass the
+ * filters, posting lists live in an open-addressing table keyed by the packed trigram, so beyond the index itself
+ * there are no objects per code or per trigram except the posting arrays.
+ */
+final class NgramIndex {
+
+  static final int N = 3;
+
+  private static final char START = '\u0002';
+
+  private static final char END = '\u0003';
+
+  private static final int[] EMPTY = new int[0];
+
+  private final CodeIndex codes;
+
+  /**
+   * Per ordinal, capped at {@link Character#MAX_VALUE}.
+   */
+  private final char[] lengths;
+
+  private final char[] gramCounts;
+
+  private final GramTable postings;
+
+  private NgramIndex(CodeIndex codes, char[] lengths, char[] gramCounts, GramTable postings) {
+    this.codes = codes;
+    this.lengths = lengths;
+    this.gramCounts = gramCounts;
+    this.postings = postings;
+  }
+
+  static NgramIndex of(CodeIndex index) {
+    char[] lengths = new char[index.size()];
+    char[] gramCounts = new char[lengths.length];
+    GramTable postings = new GramTable();
+    int[] id = { 0 };
+    index.forEach(code -> {
+      long[] grams = distinctGrams(code);
+      for (long gram : grams) {
+        postings.add(gram, id[0]);
+      }
+      lengths[id[0]] = capped(code.length());
+      gramCounts[id[0]] = capped(grams.length);
+      id[0]++;
+    });
+    postings.trim();
+    return new NgramIndex(index, lengths, gramCounts, postings);
+  }
+
+  /**
+   * Checks the candidates for {@code similar}'s query with it.
+   */
+  void findSimilar(SimilarCodes similar) {
+    String query = similar.query();
+    int maxDistance = similar.maxDistance();
+    long[] queryGrams = distinctGrams(query);
+    int required = queryGrams.length - maxDistance * N;
+    if (required <= 0) {
+      codes.forEach(similar::check);
+      return;
+    }
+
+    int[][] lists = new int[queryGrams.length][];
+    for (int i = 0; i < queryGrams.length; i++) {
+      int[] list = postings.get(queryGrams[i]);
+      lists[i] = list == null ? EMPTY : list;
+    }
+    Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+    for (int candidate : union(lists, queryGrams.length - required + 1)) {
+      if (Math.abs(lengths[candidate] - query.length()) <= maxDistance
+          && sharedGrams(candidate, lists) >= Math.max(queryGrams.length, gramCounts[candidate]) - maxDistance * N) {
+        similar.check(codes.get(candidate));
+      }
+    }
+  }
+
+  int size() {
+    return lengths.length;
+  }
+
+  /**
+   * Sorted, distinct ids of the first {@code count} lists.
+   */
+  private static int[] union(int[][] lists, int count) {
+    int total = 0;
+    for (int i = 0; i < count; i++) {
+      total += lists[i].length;
+    }
+    int[] ids = new int[total];
+    int size = 0;
+    for (int i = 0; i < count; i++) {
+      System.arraycopy(lists[i], 0, ids, size, lists[i].length);
+      size += lists[i].length;
+    }
+    Arrays.sort(ids);
+    int distinct = 0;
+    for (int i = 0; i < size; i++) {
+      if (distinct == 0 || ids[distinct - 1] != ids[i]) {
+        ids[distinct++] = ids[i];
+      }
+    }
+    return Arrays.copyOf(ids, distinct);
+  }
+
+  private static int sharedGrams(int id, int[][] lists) {
+    int shared = 0;
+    for (int[] list : lists) {
+      if (Arrays.binarySearch(list, id) >= 0) {
+        shared++;
+      }
+    }
+    return shared;
+  }
+
+  /**
+   * Distinct trigrams of the padded code, three chars packed into a long each.
+   */
+  static long[] distinctGrams(String code) {
+    int length = code.length() + 2 * (N - 1);
+    long[] grams = new long[length - N + 1];
+    for (int i = 0; i < grams.length; i++) {
+      long gram = 0;
+      for (int j = i; j < i + N; j++) {
+        gram = gram << 16 | padded(code, j);
+      }
+      grams[i] = gram;
+    }
+    Arrays.sort(grams);
+    int distinct = 0;
+    for (int i = 0; i < grams.length; i++) {
+      if (distinct == 0 || grams[distinct - 1] != grams[i]) {
+        grams[distinct++] = grams[i];
+      }
+    }
+    return Arrays.copyOf(grams, distinct);
+  }
+
+  private static char padded(String code, int index) {
+    if (index < N - 1) {
+      return START;
+    }
+    index -= N - 1;
+    return index < code.length() ? code.charAt(index) : END;
+  }
+
+  private static char capped(int value) {
+    return (char) Math.min(value, Character.MAX_VALUE);
+  }
+
+  /**
+   * Open-addressing map from packed trigram to posting list, grown while building and trimmed once done.
+   */
+  private static final class GramTable {
+
+    private long[] grams = new long[1 << 10];
+
+    private int[][] ids = new int[1 << 10][];
+
+    private int[] sizes = new int[1 << 10];
+
+    private int count;
+
+    private void add(long gram, int id) {
+      int slot = slot(gram);
+      if (ids[slot] == null) {
+        if ((count + 1) * 4 > grams.length * 3) {
+          grow();
+          slot = slot(gram);
+        }
+        grams[slot] = gram;
+        ids[slot] = new int[4];
+        count++;
+      } else if (sizes[slot] == ids[slot].length) {
+        ids[slot] = Arrays.copyOf(ids[slot], sizes[slot] * 2);
+      }
+      ids[slot][sizes[slot]++] = id;
+    }
+
+    private int[] get(long gram) {
+      return ids[slot(gram)];
+    }
+
+    private void trim() {
+      for (int slot = 0; slot < ids.length; slot++) {
+        if (ids[slot] != null) {
+          ids[slot] = Arrays.copyOf(ids[slot], sizes[slot]);
+        }
+      }
+      sizes = null;
+    }
+
+    /**
+     * The slot holding {@code gram}, or the empty slot where it belongs.
+     */
+    private int slot(long gram) {
+      int mask = grams.length - 1;
+      int slot = (int) ((gram * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+      while (ids[slot] != null && grams[slot] != gram) {
+        slot = (slot + 1) & mask;
+      }
+      return slot;
+    }
+
+    private void grow() {
+      long[] oldGrams = grams;
+      int[][] oldIds = ids;
+      int[] oldSizes = sizes;
+      grams = new long[oldGrams.length * 2];
+      ids = new int[oldGrams.length * 2][];
+      sizes = new int[oldGrams.length * 2];
+      for (int old = 0; old < oldGrams.length; old++) {
+        if (oldIds[old] != null) {
+          int slot = slot(oldGrams[old]);
+          grams[slot] = oldGrams[old];
+          ids[slot] = oldIds[old];
+          sizes[slot] = oldSizes[old];
+        }
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,29 @@
+package me.chanjar.common;
+
+/**
+ * When {@link FooImpl} reloads its code snapshot from {@link Bar}.
+ */
+public enum RefreshPolicy {
+
+  /**
+   * No snapshot, every check asks {@link Bar#getAllCodes()}.
+   */
+  NONE,
+
+  /**
+   * Reload once the refresh interval is over.
+   */
+  TTL,
+
+  /**
+   * Reload only after {@link FooImpl#invalidate()}.
+   */
+  MANUAL,
+
+  /**
+   * Once the refresh interval is over ask {@link Bar#currentVersion()}. If it changed apply
+   * {@link Bar#changesSince(long)}, reload only if those are unknown or too many.
+   */
+  VERSION
+
+}
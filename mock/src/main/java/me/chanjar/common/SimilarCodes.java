@@ -0,0 +1,78 @@
+package me.chanjar.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects the codes within an edit distance of a query, see {@link Foo#findSimilarCodes(String, int)}.
+ */
+final class SimilarCodes {
+
+  private final String query;
+
+  private final int maxDistance;
+
+  private final Set<String> excluded;
+
+  private final List<Match> matches = new ArrayList<>();
+
+  /**
+   * @param excluded codes never reported, e.g. removed since an index was built
+   */
+  SimilarCodes(String query, int maxDistance, Set<String> excluded) {
+    this.query = query;
+    this.maxDistance = maxDistance;
+    this.excluded = excluded;
+  }
+
+  String query() {
+    return query;
+  }
+
+  int maxDistance() {
+    return maxDistance;
+  }
+
+  void check(String code) {
+    if (Math.abs(code.length() - query.length()) > maxDistance || excluded.contains(code)) {
+      return;
+    }
+    int distance = EditDistance.bounded(query, code, maxDistance);
+    if (distance <= maxDistance) {
+      matches.add(new Match(code, distance));
+    }
+  }
+
+  /**
+   * @return the codes found, closest first, then in code order
+   */
+  List<String> toList() {
+    matches.sort(null);
+    List<String> similar = new ArrayList<>(matches.size());
+    for (Match match : matches) {
+      similar.add(match.code);
+    }
+    return similar;
+  }
+
+  private static final class Match implements Comparable<Match> {
+
+    private final String code;
+
+    private final int distance;
+
+    private Match(String code, int distance) {
+      this.code = code;
+      this.distance = distance;
+    }
+
+    @Override
+    public int compareTo(Match other) {
+      int byDistance = Integer.compare(distance, other.distance);
+      return byDistance != 0 ? byDistance : code.compareTo(other.code);
+    }
+
+  }
+
+}
@@ -0,0 +1,66 @@
+package me.chanjar.common;
+
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class BloomFilterTest {
+
+  @Test
+  public void testNoFalseNegatives() {
+    Random random = new Random(42);
+    for (double fpp : new double[] { 0.5, 0.1, 0.01, 0.0001 }) {
+      BloomFilter filter = BloomFilter.create(10000, fpp);
+      Set<String> codes = new HashSet<>();
+      for (int i = 0; i < 10000; i++) {
+        String code = Long.toString(random.nextLong(), 36);
+        codes.add(code);
+        filter.put(code);
+      }
+      for (String code : codes) {
+        assertTrue(filter.mightContain(code), code);
+      }
+    }
+
+    // also beyond the expected number of insertions
+    BloomFilter tiny = BloomFilter.create(1, 0.01);
+    for (int i = 0; i < 1000; i++) {
+      tiny.put("code-" + i);
+    }
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(tiny.mightContain("code-" + i));
+    }
+  }
+
+  @Test
+  public void testFalsePositiveRate() {
+    BloomFilter filter = BloomFilter.create(100000, 0.01);
+    for (int i = 0; i < 100000; i++) {
+      filter.put("code-" + i);
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < 100000; i++) {
+      if (filter.mightContain("other-" + i)) {
+        falsePositives++;
+      }
+    }
+    double measured = falsePositives / 100000.0;
+    assertTrue(measured < 0.02, "measured fpp " + measured);
+
+    // about 9.6 bits and 7 hash functions per code
+    assertEquals(filter.hashFunctions(), 7);
+    assertTrue(filter.memoryBytes() < 125000, "memory " + filter.memoryBytes());
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidFpp() {
+    BloomFilter.create(10, 1);
+  }
+
+}
@@ -0,0 +1,396 @@
+package me.chanjar.common;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class FooImplTest {
+
+  private final AtomicLong now = new AtomicLong();
+
+  private CountingBar bar;
+
+  private FooImpl foo;
+
+  @BeforeMethod
+  public void setUp() {
+    bar = new CountingBar();
+    bar.codes.add("123");
+    foo = new FooImpl();
+    foo.setClock(now::get);
+    foo.setBar(bar);
+    foo.setRefreshInterval(1, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testNoSnapshotByDefault() {
+    assertTrue(foo.checkCodeDuplicate("123"));
+    assertTrue(foo.checkCodeDuplicate("123"));
+    assertEquals(bar.loads.get(), 2);
+  }
+
+  @Test
+  public void testTtl() {
+    foo.setRefreshPolicy(RefreshPolicy.TTL);
+    assertTrue(foo.checkCodeDuplicate("123"));
+    bar.codes.add("456");
+    assertFalse(foo.checkCodeDuplicate("456"));
+    assertEquals(bar.loads.get(), 1);
+
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertTrue(foo.checkCodeDuplicate("456"));
+    assertEquals(bar.loads.get(), 2);
+  }
+
+  @Test
+  public void testManual() {
+    foo.setRefreshPolicy(RefreshPolicy.MANUAL);
+    assertTrue(foo.checkCodeDuplicate("123"));
+    bar.codes.add("456");
+    now.addAndGet(TimeUnit.HOURS.toNanos(1));
+    assertFalse(foo.checkCodeDuplicate("456"));
+
+    foo.invalidate();
+    assertTrue(foo.checkCodeDuplicate("456"));
+    assertEquals(bar.loads.get(), 2);
+  }
+
+  @Test
+  public void testVersion() {
+    foo.setRefreshPolicy(RefreshPolicy.VERSION);
+    bar.version.set(1);
+    assertTrue(foo.checkCodeDuplicate("123"));
+
+    // unchanged version, no reload
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertFalse(foo.checkCodeDuplicate("456"));
+    assertEquals(bar.loads.get(), 1);
+
+    bar.codes.add("456");
+    bar.version.set(2);
+    assertFalse(foo.checkCodeDuplicate("456"));
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertTrue(foo.checkCodeDuplicate("456"));
+    assertEquals(bar.loads.get(), 2);
+  }
+
+  @Test
+  public void testCompactIndex() {
+    for (int i = 0; i < 1000; i++) {
+      bar.codes.add("code-" + i);
+    }
+    foo.setRefreshPolicy(RefreshPolicy.MANUAL);
+    foo.setCompactIndex(true);
+    foo.setBloomFilterFpp(0.01);
+
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(foo.checkCodeDuplicate("code-" + i));
+      assertFalse(foo.checkCodeDuplicate("new-" + i));
+    }
+    assertTrue(foo.currentSnapshot().index() instanceof FrontCodedCodeIndex);
+  }
+
+  @Test
+  public void testBloomFilter() {
+    for (int i = 0; i < 1000; i++) {
+      bar.codes.add("code-" + i);
+    }
+    foo.setRefreshPolicy(RefreshPolicy.MANUAL);
+    foo.setBloomFilterFpp(0.01);
+
+    // not in front of a hash set
+    assertTrue(foo.checkCodeDuplicate("code-0"));
+    assertNull(foo.getBloomFilterStats());
+
+    foo.setCompactIndex(true);
+    foo.invalidate();
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(foo.checkCodeDuplicate("code-" + i));
+      assertFalse(foo.checkCodeDuplicate("new-" + i));
+    }
+    BloomFilterStats stats = foo.getBloomFilterStats();
+    assertEquals(stats.getNegatives() + stats.getFalsePositives(), 1000);
+    assertTrue(stats.getMeasuredFpp() < 0.05, stats.toString());
+    assertTrue(stats.getMemoryBytes() > 0);
+  }
+
+  @Test
+  public void testChangesApplied() {
+    foo.setRefreshPolicy(RefreshPolicy.VERSION);
+    foo.setCompactIndex(true);
+    foo.setBloomFilterFpp(0.01);
+    bar.version.set(1);
+    assertTrue(foo.checkCodeDuplicate("123"));
+
+    bar.change(Arrays.asList("456", "789"), Collections.singleton("123"));
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertTrue(foo.checkCodeDuplicate("456"));
+    assertTrue(foo.checkCodeDuplicate("789"));
+    assertFalse(foo.checkCodeDuplicate("123"));
+
+    // two versions in one refresh, 789 comes and goes
+    bar.change(Collections.singleton("123"), Collections.singleton("789"));
+    bar.change(Collections.singleton("aaa"), Collections.singleton("456"));
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertTrue(foo.checkCodeDuplicate("123"));
+    assertTrue(foo.checkCodeDuplicate("aaa"));
+    assertFalse(foo.checkCodeDuplicate("456"));
+    assertFalse(foo.checkCodeDuplicate("789"));
+    assertEquals(bar.loads.get(), 1);
+
+    // changes that stop short of the current version
+    bar.lag = 1;
+    bar.change(Collections.singleton("bbb"), Collections.emptySet());
+    bar.change(Collections.singleton("ccc"), Collections.emptySet());
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertTrue(foo.checkCodeDuplicate("ccc"));
+    assertEquals(bar.loads.get(), 2);
+    bar.lag = 0;
+
+    // too many changes to keep on top of the index
+    List<String> many = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      many.add("many-" + i);
+    }
+    bar.change(many, Collections.emptySet());
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertTrue(foo.checkCodeDuplicate("many-0"));
+    assertEquals(bar.loads.get(), 3);
+
+    // changes no longer known
+    bar.change(Collections.singleton("000"), Collections.emptySet());
+    bar.changes.clear();
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertTrue(foo.checkCodeDuplicate("000"));
+    assertTrue(foo.checkCodeDuplicate("many-1999"));
+    assertEquals(bar.loads.get(), 4);
+  }
+
+  @Test
+  public void testFindSimilarCodes() {
+    bar.codes.addAll(Arrays.asList("SKU-1000", "SKU-1001", "SKU-2100", "SKU-10001"));
+    List<String> expected = Arrays.asList("SKU-1000", "SKU-10001", "SKU-1001");
+    assertEquals(foo.findSimilarCodes("SKU-1000", 1), expected);
+
+    ForkJoinPool pool = new ForkJoinPool(1);
+    foo.setForkJoinPool(pool);
+    foo.setRefreshPolicy(RefreshPolicy.VERSION);
+    bar.version.set(1);
+    // compared one by one while the n-gram index is being built
+    assertEquals(foo.findSimilarCodes("SKU-1000", 1), expected);
+    assertTrue(pool.awaitQuiescence(10, TimeUnit.SECONDS));
+    assertEquals(foo.findSimilarCodes("SKU-1000", 1), expected);
+    assertEquals(foo.findSimilarCodes("SKU-1000", 0), Collections.singletonList("SKU-1000"));
+
+    // changes are applied on top of the n-gram index
+    bar.change(Collections.singleton("SKU-100O"), Collections.singleton("SKU-1001"));
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertEquals(foo.findSimilarCodes("SKU-1000", 1), Arrays.asList("SKU-1000", "SKU-10001", "SKU-100O"));
+    assertEquals(bar.loads.get(), 2);
+    pool.shutdown();
+  }
+
+  @Test
+  public void testSnapshotFromStream() {
+    AtomicInteger closed = new AtomicInteger();
+    foo.setBar(new Bar() {
+      @Override
+      public Set<String> getAllCodes() {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Stream<String> streamCodes() {
+        return Stream.of("1", "2", "3").onClose(closed::incrementAndGet);
+      }
+    });
+    foo.setRefreshPolicy(RefreshPolicy.MANUAL);
+    assertTrue(foo.checkCodeDuplicate("2"));
+    assertFalse(foo.checkCodeDuplicate("4"));
+    assertEquals(foo.checkCodeDuplicates(Arrays.asList("3", "4")), BitSet.valueOf(new long[] { 1 }));
+    assertEquals(closed.get(), 1);
+  }
+
+  @Test
+  public void testInvalidateDuringRefresh() throws Exception {
+    CountDownLatch streaming = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger streams = new AtomicInteger();
+    foo.setBar(new Bar() {
+      @Override
+      public Set<String> getAllCodes() {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Stream<String> streamCodes() {
+        switch (streams.incrementAndGet()) {
+          case 1:
+            return Stream.of("old");
+          case 2:
+            streaming.countDown();
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return Stream.of("stale");
+          default:
+            return Stream.of("fresh");
+        }
+      }
+    });
+    foo.setRefreshPolicy(RefreshPolicy.TTL);
+    assertTrue(foo.checkCodeDuplicate("old"));
+
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    Thread refresher = new Thread(() -> foo.checkCodeDuplicate("old"));
+    refresher.start();
+    streaming.await();
+    foo.invalidate();
+    release.countDown();
+    refresher.join();
+
+    // the refresh began before the invalidation, its snapshot is not kept
+    assertTrue(foo.checkCodeDuplicate("fresh"));
+    assertFalse(foo.checkCodeDuplicate("stale"));
+    assertEquals(streams.get(), 3);
+  }
+
+  @Test
+  public void testBatch() {
+    BitSet result = foo.checkCodeDuplicates(Arrays.asList("456", "123", null, "123"));
+    assertEquals(result, BitSet.valueOf(new long[] { 0b1010 }));
+    assertEquals(bar.loads.get(), 1);
+  }
+
+  @Test
+  public void testLargeBatchSplit() {
+    for (int i = 0; i < 100000; i += 3) {
+      bar.codes.add("code-" + i);
+    }
+    List<String> batch = new ArrayList<>();
+    for (int i = 0; i < 100000; i++) {
+      batch.add("code-" + i);
+    }
+
+    for (RefreshPolicy policy : new RefreshPolicy[] { RefreshPolicy.NONE, RefreshPolicy.MANUAL }) {
+      foo.setRefreshPolicy(policy);
+      BitSet result = foo.checkCodeDuplicates(batch);
+      assertEquals(result.cardinality(), 33334);
+      for (int i = 0; i < 100000; i++) {
+        assertEquals(result.get(i), i % 3 == 0);
+      }
+    }
+    assertEquals(bar.loads.get(), 2);
+  }
+
+  @Test
+  public void testConcurrentReadersLoadOnce() throws Exception {
+    foo.setRefreshPolicy(RefreshPolicy.MANUAL);
+    Thread[] threads = new Thread[8];
+    AtomicInteger found = new AtomicInteger();
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(() -> {
+        for (int j = 0; j < 1000; j++) {
+          if (foo.checkCodeDuplicate("123")) {
+            found.incrementAndGet();
+          }
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(found.get(), 8000);
+    assertEquals(bar.loads.get(), 1);
+  }
+
+  private static class CountingBar implements Bar {
+
+    private final Set<String> codes = Collections.synchronizedSet(new HashSet<>());
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final AtomicLong version = new AtomicLong(-1);
+
+    private final Map<Long, CodeChanges> changes = new ConcurrentHashMap<>();
+
+    /**
+     * Versions {@link #changesSince(long)} falls behind the current one.
+     */
+    private volatile long lag;
+
+    private void change(Collection<String> added, Collection<String> removed) {
+      long from = version.get();
+      codes.addAll(added);
+      codes.removeAll(removed);
+      changes.put(from, new CodeChanges(from + 1, added, removed));
+      version.set(from + 1);
+    }
+
+    @Override
+    public Set<String> getAllCodes() {
+      loads.incrementAndGet();
+      synchronized (codes) {
+        return new HashSet<>(codes);
+      }
+    }
+
+    @Override
+    public long currentVersion() {
+      return version.get();
+    }
+
+    /**
+     * Net changes from {@code since} to the current version, composed of the changes of each step.
+     */
+    @Override
+    public CodeChanges changesSince(long since) {
+      long to = version.get() - lag;
+      Set<String> added = new HashSet<>();
+      Set<String> removed = new HashSet<>();
+      for (long step = since; step < to; step++) {
+        CodeChanges change = changes.get(step);
+        if (change == null) {
+          return null;
+        }
+        for (String code : change.getRemoved()) {
+          if (!added.remove(code)) {
+            removed.add(code);
+          }
+        }
+        for (String code : change.getAdded()) {
+          if (!removed.remove(code)) {
+            added.add(code);
+          }
+        }
+      }
+      return new CodeChanges(to, added, removed);
+    }
+
+  }
+
+}
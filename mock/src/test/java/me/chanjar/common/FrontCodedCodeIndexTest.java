@@ -0,0 +1,89 @@
+package me.chanjar.common;
+
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class FrontCodedCodeIndexTest {
+
+  @Test
+  public void testMembership() {
+    Random random = new Random(7);
+    TreeSet<String> codes = new TreeSet<>();
+    List<String> input = new ArrayList<>();
+    for (int i = 0; i < 20000; i++) {
+      String code = "ORG-" + random.nextInt(50) + "-" + Integer.toString(random.nextInt(1 << 20), 36);
+      codes.add(code);
+      input.add(code);
+      // duplicates are dropped
+      if (i % 10 == 0) {
+        input.add(code);
+      }
+    }
+    codes.add("");
+    input.add("");
+
+    FrontCodedCodeIndex index = FrontCodedCodeIndex.of(input.stream());
+    assertEquals(index.size(), codes.size());
+    for (String code : codes) {
+      assertTrue(index.contains(code), code);
+      assertEquals(index.contains(code + "0"), codes.contains(code + "0"), code + "0");
+      if (code.length() > 0) {
+        String prefix = code.substring(0, code.length() - 1);
+        assertEquals(index.contains(prefix), codes.contains(prefix), prefix);
+      }
+    }
+    assertFalse(index.contains("ORG-"));
+    assertFalse(index.contains("ZZZ"));
+
+    List<String> iterated = new ArrayList<>();
+    index.forEach(iterated::add);
+    assertEquals(iterated, new ArrayList<>(codes));
+    for (int i = 0; i < iterated.size(); i++) {
+      assertEquals(index.get(i), iterated.get(i));
+    }
+  }
+
+  @Test
+  public void testUnicodeAndEmpty() {
+    FrontCodedCodeIndex index = FrontCodedCodeIndex.of(Stream.of("编码-1", "编码-2", "código", "😀"));
+    assertTrue(index.contains("编码-1"));
+    assertTrue(index.contains("😀"));
+    assertFalse(index.contains("编码"));
+    assertFalse(index.contains("codigo"));
+
+    for (String code : new String[] { "", "ascii", "código", "编码", "😀x", "\uD83D", "a\uDE00b" }) {
+      byte[] buffer = new byte[3 * code.length()];
+      int length = FrontCodedCodeIndex.encode(code, buffer);
+      assertEquals(Arrays.copyOf(buffer, length), code.getBytes(StandardCharsets.UTF_8), code);
+    }
+
+    FrontCodedCodeIndex empty = FrontCodedCodeIndex.of(Stream.empty());
+    assertEquals(empty.size(), 0);
+    assertFalse(empty.contains(""));
+  }
+
+  @Test
+  public void testPrefixesShared() {
+    FrontCodedCodeIndex.Builder builder = new FrontCodedCodeIndex.Builder();
+    for (int i = 0; i < 100000; i++) {
+      builder.add(String.format("WAREHOUSE-EAST-%08d", i));
+    }
+    FrontCodedCodeIndex index = builder.build();
+    assertTrue(index.contains("WAREHOUSE-EAST-00099999"));
+    assertFalse(index.contains("WAREHOUSE-EAST-00100000"));
+    // 23 bytes per code raw, a handful front coded
+    assertTrue(index.memoryBytes() < 100000 * 8, "memory " + index.memoryBytes());
+  }
+
+}
@@ -0,0 +1,87 @@
+package me.chanjar.common;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+
+public class NgramIndexTest {
+
+  private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-";
+
+  @Test
+  public void testSameAsFullScan() {
+    Random random = new Random(11);
+    List<String> codes = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      codes.add(randomCode(random, 3 + random.nextInt(12)));
+    }
+    // near duplicates of existing codes
+    for (int i = 0; i < 2000; i++) {
+      codes.add(typo(random, codes.get(random.nextInt(codes.size()))));
+    }
+    NgramIndex index = NgramIndex.of(FrontCodedCodeIndex.of(codes.stream()));
+
+    for (int i = 0; i < 200; i++) {
+      String query = i % 2 == 0 ? typo(random, codes.get(random.nextInt(codes.size())))
+          : randomCode(random, 1 + random.nextInt(14));
+      for (int maxDistance = 0; maxDistance <= 3; maxDistance++) {
+        SimilarCodes indexed = new SimilarCodes(query, maxDistance, Collections.emptySet());
+        index.findSimilar(indexed);
+
+        SimilarCodes scanned = new SimilarCodes(query, maxDistance, Collections.emptySet());
+        codes.stream().distinct().forEach(scanned::check);
+        assertEquals(indexed.toList(), scanned.toList(), query + " within " + maxDistance);
+      }
+    }
+  }
+
+  @Test
+  public void testEditDistance() {
+    assertEquals(EditDistance.bounded("kitten", "sitting", 3), 3);
+    assertEquals(EditDistance.bounded("kitten", "sitting", 2), 3);
+    assertEquals(EditDistance.bounded("", "abc", 5), 3);
+    assertEquals(EditDistance.bounded("abc", "abc", 0), 0);
+    assertEquals(EditDistance.bounded("abcdef", "badcfe", 4), 4);
+    assertEquals(EditDistance.bounded("abcdef", "badcfe", 3), 4);
+    assertEquals(EditDistance.bounded("SKU-1234", "SKU-12345", 1), 1);
+    assertEquals(EditDistance.bounded("SKU-1234", "XKU-1235", 1), 2);
+  }
+
+  private static String randomCode(Random random, int length) {
+    StringBuilder code = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      code.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+    }
+    return code.toString();
+  }
+
+  private static String typo(Random random, String code) {
+    StringBuilder typo = new StringBuilder(code);
+    int edits = 1 + random.nextInt(2);
+    for (int i = 0; i < edits; i++) {
+      int position = random.nextInt(typo.length() + 1);
+      char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+      switch (random.nextInt(3)) {
+        case 0:
+          typo.insert(position, c);
+          break;
+        case 1:
+          if (position < typo.length()) {
+            typo.deleteCharAt(position);
+          }
+          break;
+        default:
+          if (position < typo.length()) {
+            typo.setCharAt(position, c);
+          }
+      }
+    }
+    return typo.length() == 0 ? code : typo.toString();
+  }
+
+}
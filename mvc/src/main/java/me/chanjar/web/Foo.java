@@ -4,4 +4,12 @@ public interface Foo {
 
   boolean checkCodeDuplicate(String code);
 
+  /**
+   * Version of the code catalogue, changing whenever a {@link #checkCodeDuplicate(String)} answer may change.
+   * Negative if the catalogue is not versioned, in which case answers are not cacheable.
+   */
+  default long getCodesVersion() {
+    return -1;
+  }
+
 }
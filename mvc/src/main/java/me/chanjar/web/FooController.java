@@ -1,26 +1,226 @@
 package me.chanjar.web;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Controller
 public class FooController {
 
+  static final String NDJSON_VALUE = "application/x-ndjson";
+
+  /**
+   * Results written between two flushes of a batch response.
+   */
+  static final int FLUSH_INTERVAL = 1024;
+
+  /**
+   * Leaves closing the response stream to the container.
+   */
+  private static final JsonFactory JSON_FACTORY = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
   @Autowired
   private Foo foo;
 
+  @Value("${foo.async.threads:16}")
+  private int asyncThreads;
+
+  @Value("${foo.async.queue-capacity:256}")
+  private int asyncQueueCapacity;
+
+  @Value("${foo.async.timeout-millis:1000}")
+  private long asyncTimeoutMillis;
+
+  @Value("${foo.cache.max-age-seconds:60}")
+  private long cacheMaxAgeSeconds;
+
+  private ThreadPoolExecutor asyncExecutor;
+
+  @PostConstruct
+  public void startAsyncExecutor() {
+    AtomicInteger threads = new AtomicInteger();
+    asyncExecutor = new ThreadPoolExecutor(asyncThreads, asyncThreads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(asyncQueueCapacity), runnable -> {
+          Thread thread = new Thread(runnable, "foo-check-" + threads.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  @PreDestroy
+  public void stopAsyncExecutor() {
+    asyncExecutor.shutdownNow();
+  }
+
+  /**
+   * When {@link Foo#getCodesVersion()} is known the answer carries an ETag of that version and may be cached for
+   * {@code foo.cache.max-age-seconds}. A matching {@code If-None-Match} is answered with 304 without checking.
+   */
   @RequestMapping(path = "/foo/check-code-dup", method = RequestMethod.GET)
-  public ResponseEntity<Boolean> checkCodeDuplicate(@RequestParam String code) {
+  public ResponseEntity<Boolean> checkCodeDuplicate(@RequestParam String code, WebRequest webRequest) {
+
+    String etag = codesEtag();
+    if (etag == null) {
+      return new ResponseEntity<>(
+          Boolean.valueOf(foo.checkCodeDuplicate(code)),
+          HttpStatus.OK
+      );
+    }
+    if (webRequest.checkNotModified(etag)) {
+      return notModified();
+    }
+    return cacheable(foo.checkCodeDuplicate(code));
+
+  }
+
+  /**
+   * Same as {@link #checkCodeDuplicate(String, WebRequest)}, but the check runs on a bounded executor
+   * ({@code foo.async.*} properties) and the servlet thread is released meanwhile. A full queue or a check taking
+   * longer than the timeout is answered with 503 right away.
+   */
+  @RequestMapping(path = "/foo/check-code-dup/async", method = RequestMethod.GET)
+  public DeferredResult<ResponseEntity<Boolean>> checkCodeDuplicateAsync(@RequestParam String code,
+      WebRequest webRequest) {
+
+    ResponseEntity<Boolean> unavailable = new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+    DeferredResult<ResponseEntity<Boolean>> result = new DeferredResult<>(asyncTimeoutMillis, unavailable);
+    String etag = codesEtag();
+    if (etag != null && webRequest.checkNotModified(etag)) {
+      result.setResult(notModified());
+      return result;
+    }
+    try {
+      Future<?> check = asyncExecutor.submit(() -> {
+        try {
+          boolean duplicate = foo.checkCodeDuplicate(code);
+          result.setResult(etag == null ? new ResponseEntity<>(Boolean.valueOf(duplicate), HttpStatus.OK)
+              : cacheable(duplicate));
+        } catch (RuntimeException e) {
+          result.setErrorResult(e);
+        }
+      });
+      result.onTimeout(() -> {
+        // before cancelling, the interrupted check could set its own result first
+        result.setResult(unavailable);
+        check.cancel(true);
+      });
+    } catch (RejectedExecutionException e) {
+      result.setResult(unavailable);
+    }
+    return result;
+
+  }
+
+  private String codesEtag() {
+    long version = foo.getCodesVersion();
+    return version < 0 ? null : "\"" + version + "\"";
+  }
+
+  /**
+   * The ETag header itself is set by {@link WebRequest#checkNotModified(String)}.
+   */
+  private ResponseEntity<Boolean> cacheable(boolean duplicate) {
+    return ResponseEntity.ok().cacheControl(cacheControl()).body(Boolean.valueOf(duplicate));
+  }
+
+  private ResponseEntity<Boolean> notModified() {
+    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl()).build();
+  }
+
+  private CacheControl cacheControl() {
+    return CacheControl.maxAge(cacheMaxAgeSeconds, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Checks a JSON array of codes, answering with a JSON array of booleans in the same order. Codes are read and
+   * results written one at a time, so memory use does not depend on the batch size.
+   */
+  @RequestMapping(path = "/foo/check-code-dup/batch", method = RequestMethod.POST,
+      consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> checkCodeDuplicatesJson(InputStream body) throws IOException {
+
+    JsonParser parser = JSON_FACTORY.createParser(body);
+    if (parser.nextToken() != JsonToken.START_ARRAY) {
+      parser.close();
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    StreamingResponseBody results = out -> {
+      try (JsonParser codes = parser;
+           JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+        generator.writeStartArray();
+        int written = 0;
+        JsonToken token;
+        while ((token = codes.nextToken()) != JsonToken.END_ARRAY) {
+          if (token != JsonToken.VALUE_STRING) {
+            throw new IOException("Expected a string code at " + codes.getCurrentLocation() + " but got " + token);
+          }
+          generator.writeBoolean(foo.checkCodeDuplicate(codes.getText()));
+          if (++written % FLUSH_INTERVAL == 0) {
+            generator.flush();
+          }
+        }
+        generator.writeEndArray();
+      }
+    };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(results);
+
+  }
+
+  /**
+   * Checks one code per line, answering with one {@code true} or {@code false} per line in the same order.
+   */
+  @RequestMapping(path = "/foo/check-code-dup/batch", method = RequestMethod.POST,
+      consumes = { NDJSON_VALUE, MediaType.TEXT_PLAIN_VALUE })
+  public ResponseEntity<StreamingResponseBody> checkCodeDuplicatesLines(InputStream body) {
 
-    return new ResponseEntity<>(
-        Boolean.valueOf(foo.checkCodeDuplicate(code)),
-        HttpStatus.OK
-    );
+    StreamingResponseBody results = out -> {
+      Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+      try (BufferedReader codes = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+        int written = 0;
+        String code;
+        while ((code = codes.readLine()) != null) {
+          writer.write(foo.checkCodeDuplicate(code) ? "true\n" : "false\n");
+          if (++written % FLUSH_INTERVAL == 0) {
+            writer.flush();
+          }
+        }
+      }
+      writer.flush();
+    };
+    return ResponseEntity.ok().contentType(MediaType.TEXT_PLAIN).body(results);
 
   }
 
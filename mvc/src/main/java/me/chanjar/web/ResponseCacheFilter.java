@@ -0,0 +1,473 @@
+package me.chanjar.web;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches the bytes of successful GET responses of the code duplicate check, {@link #CACHED_PATHS}, and serves
+ * repeats without reaching the {@code DispatcherServlet}. Other requests are not filtered.
+ * <p>
+ * Entries are keyed by method, path and query parameters sorted by name, and dropped after
+ * {@code foo.response-cache.ttl-millis} or as soon as {@link Foo#getCodesVersion()} moves on from the version they
+ * were stored under. Requests are passed straight through while the catalogue is unversioned, since its answers
+ * are not cacheable.
+ * <p>
+ * Each entry is charged an estimate of its memory: key, headers and body plus {@link #ENTRY_OVERHEAD}. Once the
+ * entries are charged more than {@code foo.response-cache.max-bytes} the least recently used ones are evicted,
+ * approximately: lookups do not lock, they stamp the entry they hit, and a store evicts the entry with the oldest
+ * stamp out of {@link #EVICTION_SAMPLES} sampled ones.
+ * <p>
+ * Misses are written through to the client as they are produced, a copy is kept only up to
+ * {@code foo.response-cache.max-bytes}.
+ */
+@Component
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+  public static final Set<String> CACHED_PATHS =
+      Collections.unmodifiableSet(new HashSet<>(Arrays.asList("/foo/check-code-dup", "/foo/check-code-dup/async")));
+
+  /**
+   * Bytes charged per entry on top of its key, headers and body: the entry, its strings and arrays, and the map
+   * node.
+   */
+  static final int ENTRY_OVERHEAD = 256;
+
+  private static final int EVICTION_SAMPLES = 8;
+
+  private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+
+  @Autowired
+  private Foo foo;
+
+  @Value("${foo.response-cache.max-bytes:1048576}")
+  private volatile long maxBytes;
+
+  @Value("${foo.response-cache.ttl-millis:10000}")
+  private volatile long ttlMillis;
+
+  private final ConcurrentHashMap<String, CachedResponse> entries = new ConcurrentHashMap<>();
+
+  /**
+   * The entries again, for sampling. Guarded by {@code this}, like {@link #bytes} and {@link #writes}.
+   */
+  private final ArrayList<CachedResponse> sampled = new ArrayList<>();
+
+  private long bytes;
+
+  /**
+   * Incremented twice per store, a stored entry is stamped with the odd value in between, see
+   * {@link CachedResponse#accessed}.
+   */
+  private volatile long writes;
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  public void setFoo(Foo foo) {
+    this.foo = foo;
+  }
+
+  public void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  public void setTtl(long ttl, TimeUnit unit) {
+    this.ttlMillis = unit.toMillis(ttl);
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Estimated memory of the entries, see {@link #ENTRY_OVERHEAD}.
+   */
+  public synchronized long getBytes() {
+    return bytes;
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+    sampled.clear();
+    bytes = 0;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !CACHED_PATHS.contains(URL_PATH_HELPER.getPathWithinApplication(request));
+  }
+
+  /**
+   * Async requests come back through here to store the captured body, see {@link #doFilterInternal}.
+   */
+  @Override
+  protected boolean shouldNotFilterAsyncDispatch() {
+    return false;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+
+    if (isAsyncDispatch(request)) {
+      filterChain.doFilter(request, response);
+      store(WebUtils.getNativeResponse(response, CapturingResponse.class));
+      return;
+    }
+
+    long version = foo.getCodesVersion();
+    if (version < 0 || !"GET".equals(request.getMethod())) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    String key = key(request);
+    CachedResponse cached = get(key, version);
+    if (cached != null) {
+      hits.increment();
+      cached.writeTo(request, response);
+      return;
+    }
+    misses.increment();
+
+    CapturingResponse capturing = new CapturingResponse(response, key, version, maxBytes);
+    try {
+      filterChain.doFilter(request, capturing);
+    } finally {
+      if (!isAsyncStarted(request)) {
+        store(capturing);
+      }
+    }
+
+  }
+
+  private void store(CapturingResponse capturing) throws IOException {
+
+    if (capturing == null) {
+      return;
+    }
+    capturing.flushWriter();
+    if (capturing.isCacheable()) {
+      put(new CachedResponse(capturing, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMillis)));
+    }
+
+  }
+
+  private CachedResponse get(String key, long version) {
+
+    CachedResponse cached = entries.get(key);
+    if (cached == null) {
+      return null;
+    }
+    if (cached.version != version || System.nanoTime() - cached.expiresAt >= 0) {
+      synchronized (this) {
+        remove(cached);
+      }
+      return null;
+    }
+    long stamp = writes;
+    if (cached.accessed != stamp) {
+      cached.accessed = stamp;
+    }
+    return cached;
+
+  }
+
+  private synchronized void put(CachedResponse cached) {
+
+    cached.accessed = writes + 1;
+    writes += 2;
+    CachedResponse previous = entries.put(cached.key, cached);
+    if (previous != null) {
+      cached.index = previous.index;
+      sampled.set(cached.index, cached);
+      bytes -= previous.size;
+    } else {
+      cached.index = sampled.size();
+      sampled.add(cached);
+    }
+    bytes += cached.size;
+    while (bytes > maxBytes && !sampled.isEmpty()) {
+      remove(leastRecentlyUsed(cached));
+    }
+
+  }
+
+  /**
+   * Out of all entries, or a sample of them, preferring any other one to {@code added}.
+   */
+  private CachedResponse leastRecentlyUsed(CachedResponse added) {
+    if (sampled.size() == 1) {
+      return sampled.get(0);
+    }
+    CachedResponse oldest = null;
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int samples = Math.min(EVICTION_SAMPLES, sampled.size());
+    for (int i = 0; i < samples; i++) {
+      CachedResponse candidate = sampled.size() <= EVICTION_SAMPLES ? sampled.get(i)
+          : sampled.get(random.nextInt(sampled.size()));
+      if (candidate != added && (oldest == null || candidate.accessed < oldest.accessed)) {
+        oldest = candidate;
+      }
+    }
+    return oldest != null ? oldest : added;
+  }
+
+  /**
+   * Called holding {@code this}.
+   */
+  private void remove(CachedResponse cached) {
+    if (!entries.remove(cached.key, cached)) {
+      return;
+    }
+    CachedResponse last = sampled.remove(sampled.size() - 1);
+    if (last != cached) {
+      last.index = cached.index;
+      sampled.set(last.index, last);
+    }
+    bytes -= cached.size;
+  }
+
+  static String key(HttpServletRequest request) {
+
+    StringBuilder key = new StringBuilder(request.getMethod()).append(' ').append(request.getRequestURI());
+    Map<String, String[]> parameters = request.getParameterMap();
+    String[] names = parameters.keySet().toArray(new String[parameters.size()]);
+    Arrays.sort(names);
+    char separator = '?';
+    for (String name : names) {
+      for (String value : parameters.get(name)) {
+        key.append(separator).append(encode(name)).append('=').append(encode(value));
+        separator = '&';
+      }
+    }
+    return key.toString();
+
+  }
+
+  private static String encode(String value) {
+    try {
+      return URLEncoder.encode(value, "UTF-8");
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Passes the body through and keeps a copy of it as long as it fits in {@code limit} bytes.
+   */
+  private static class CapturingResponse extends HttpServletResponseWrapper {
+
+    private final String key;
+
+    private final long version;
+
+    private final long limit;
+
+    private final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+    private boolean overflowed;
+
+    private ServletOutputStream outputStream;
+
+    private PrintWriter writer;
+
+    CapturingResponse(HttpServletResponse response, String key, long version, long limit) {
+      super(response);
+      this.key = key;
+      this.version = version;
+      this.limit = limit;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      if (outputStream == null) {
+        outputStream = new CopyingOutputStream(super.getOutputStream());
+      }
+      return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      if (writer == null) {
+        writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+      }
+      return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      flushWriter();
+      super.flushBuffer();
+    }
+
+    void flushWriter() {
+      if (writer != null) {
+        writer.flush();
+      }
+    }
+
+    boolean isCacheable() {
+      String cacheControl = getHeader(HttpHeaders.CACHE_CONTROL);
+      return !overflowed
+          && getStatus() == HttpServletResponse.SC_OK
+          && getHeader(HttpHeaders.SET_COOKIE) == null
+          && (cacheControl == null || !(cacheControl.contains("no-store") || cacheControl.contains("private")));
+    }
+
+    private void copy(byte[] bytes, int offset, int length) {
+      if (overflowed) {
+        return;
+      }
+      if (copy.size() + length > limit) {
+        overflowed = true;
+        copy.reset();
+        return;
+      }
+      copy.write(bytes, offset, length);
+    }
+
+    private class CopyingOutputStream extends ServletOutputStream {
+
+      private final ServletOutputStream target;
+
+      CopyingOutputStream(ServletOutputStream target) {
+        this.target = target;
+      }
+
+      @Override
+      public void write(int b) throws IOException {
+        target.write(b);
+        copy(new byte[] { (byte) b }, 0, 1);
+      }
+
+      @Override
+      public void write(byte[] bytes, int offset, int length) throws IOException {
+        target.write(bytes, offset, length);
+        copy(bytes, offset, length);
+      }
+
+      @Override
+      public void flush() throws IOException {
+        target.flush();
+      }
+
+      @Override
+      public boolean isReady() {
+        return target.isReady();
+      }
+
+      @Override
+      public void setWriteListener(WriteListener listener) {
+        target.setWriteListener(listener);
+      }
+
+    }
+
+  }
+
+  private static class CachedResponse {
+
+    private final String key;
+
+    private final long version;
+
+    private final long expiresAt;
+
+    private final String contentType;
+
+    private final String etag;
+
+    private final String cacheControl;
+
+    private final byte[] body;
+
+    private final long size;
+
+    /**
+     * Position in {@link #sampled}, guarded like it.
+     */
+    private int index;
+
+    /**
+     * {@link #writes} when last read, written without locking, so a racing lookup may lose its stamp. It ranks
+     * the entry after those stored before the lookup and ahead of those stored after it.
+     */
+    private volatile long accessed;
+
+    CachedResponse(CapturingResponse capturing, long expiresAt) {
+      this.key = capturing.key;
+      this.version = capturing.version;
+      this.expiresAt = expiresAt;
+      this.contentType = capturing.getContentType();
+      this.etag = capturing.getHeader(HttpHeaders.ETAG);
+      this.cacheControl = capturing.getHeader(HttpHeaders.CACHE_CONTROL);
+      this.body = capturing.copy.toByteArray();
+      this.size = ENTRY_OVERHEAD + 2L * (key.length() + lengthOf(contentType) + lengthOf(etag) + lengthOf(cacheControl))
+          + body.length;
+    }
+
+    private static int lengthOf(String value) {
+      return value == null ? 0 : value.length();
+    }
+
+    void writeTo(HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+      if (cacheControl != null) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+      }
+      if (StringUtils.hasLength(etag) && new ServletWebRequest(request, response).checkNotModified(etag)) {
+        return;
+      }
+      response.setStatus(HttpServletResponse.SC_OK);
+      if (contentType != null) {
+        response.setContentType(contentType);
+      }
+      response.setContentLength(body.length);
+      response.getOutputStream().write(body);
+
+    }
+
+  }
+
+}
@@ -0,0 +1,117 @@
+package me.chanjar.async;
+
+import me.chanjar.web.Foo;
+import me.chanjar.web.FooController;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.MockitoTestExecutionListener;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testng.annotations.Test;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.testng.Assert.assertTrue;
+
+@WebMvcTest
+@ContextConfiguration(classes = { FooController.class })
+@TestPropertySource(properties = { "foo.async.threads=1", "foo.async.queue-capacity=1" })
+@TestExecutionListeners(listeners = MockitoTestExecutionListener.class)
+public class AsyncCheckCodeDupTest extends AbstractTestNGSpringContextTests {
+
+  @Autowired
+  private MockMvc mvc;
+
+  @MockBean
+  private Foo foo;
+
+  @Test
+  public void testController() throws Exception {
+
+    when(foo.checkCodeDuplicate(anyString())).thenReturn(true);
+
+    this.mvc.perform(asyncDispatch(checkAsync("123")))
+        .andExpect(status().isOk())
+        .andExpect(content().string("true"));
+
+  }
+
+  @Test
+  public void testFullQueueUnavailable() throws Exception {
+
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(foo.checkCodeDuplicate(anyString())).thenAnswer(invocation -> {
+      entered.countDown();
+      release.await();
+      return true;
+    });
+
+    MvcResult running = checkAsync("1");
+    assertTrue(entered.await(10, TimeUnit.SECONDS));
+    MvcResult queued = checkAsync("2");
+
+    // the only thread is busy and the queue is full
+    this.mvc.perform(asyncDispatch(checkAsync("3")))
+        .andExpect(status().isServiceUnavailable());
+
+    release.countDown();
+    this.mvc.perform(asyncDispatch(running)).andExpect(status().isOk());
+    this.mvc.perform(asyncDispatch(queued)).andExpect(status().isOk());
+
+  }
+
+  @Test
+  public void testTimeoutUnavailable() throws Exception {
+
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch interrupted = new CountDownLatch(1);
+    when(foo.checkCodeDuplicate(anyString())).thenAnswer(invocation -> {
+      entered.countDown();
+      try {
+        new CountDownLatch(1).await();
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+      }
+      return true;
+    });
+
+    MvcResult result = checkAsync("1");
+    assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+    // MockMvc never times out by itself
+    MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+    for (AsyncListener listener : asyncContext.getListeners()) {
+      listener.onTimeout(new AsyncEvent(asyncContext));
+    }
+
+    this.mvc.perform(asyncDispatch(result))
+        .andExpect(status().isServiceUnavailable());
+    // the running check is cancelled
+    assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+
+  }
+
+  private MvcResult checkAsync(String code) throws Exception {
+    return this.mvc.perform(get("/foo/check-code-dup/async").param("code", code))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+  }
+
+}
@@ -0,0 +1,103 @@
+package me.chanjar.batch;
+
+import me.chanjar.web.Foo;
+import me.chanjar.web.FooController;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.MockitoTestExecutionListener;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@WebMvcTest
+@ContextConfiguration(classes = { FooController.class })
+@TestExecutionListeners(listeners = MockitoTestExecutionListener.class)
+public class BatchCheckCodeDupTest extends AbstractTestNGSpringContextTests {
+
+  @Autowired
+  private MockMvc mvc;
+
+  @MockBean
+  private Foo foo;
+
+  @BeforeMethod
+  public void stubFoo() {
+    // codes ending with 0 are duplicates
+    when(foo.checkCodeDuplicate(anyString())).thenAnswer(
+        invocation -> ((String) invocation.getArguments()[0]).endsWith("0"));
+  }
+
+  @Test
+  public void testJsonArray() throws Exception {
+
+    MockHttpServletResponse response = performBatch(MediaType.APPLICATION_JSON_VALUE, "[\"10\", \"11\", \"20\"]");
+    assertEquals(response.getStatus(), 200);
+    assertTrue(MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(response.getContentType())));
+    assertEquals(response.getContentAsString(), "[true,false,true]");
+
+  }
+
+  @Test
+  public void testLines() throws Exception {
+
+    MockHttpServletResponse response = performBatch("application/x-ndjson", "10\n11\r\n20\n");
+    assertEquals(response.getContentAsString(), "true\nfalse\ntrue\n");
+
+  }
+
+  @Test
+  public void testNotAnArray() throws Exception {
+
+    this.mvc.perform(post("/foo/check-code-dup/batch")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"code\": \"10\"}"))
+        .andExpect(status().isBadRequest());
+
+  }
+
+  @Test
+  public void testLargeBatchAligned() throws Exception {
+
+    StringBuilder body = new StringBuilder();
+    for (int i = 0; i < 50000; i++) {
+      body.append(i).append('\n');
+    }
+    String[] lines = performBatch(MediaType.TEXT_PLAIN_VALUE, body.toString()).getContentAsString().split("\n");
+    assertEquals(lines.length, 50000);
+    for (int i = 0; i < lines.length; i++) {
+      assertEquals(lines[i], String.valueOf(i % 10 == 0), "line " + i);
+    }
+
+  }
+
+  /**
+   * The streamed body is written to the response of the original request, once the async processing is done.
+   */
+  private MockHttpServletResponse performBatch(String contentType, String body) throws Exception {
+
+    MvcResult result = this.mvc.perform(post("/foo/check-code-dup/batch")
+        .contentType(contentType)
+        .content(body))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    result.getAsyncResult();
+    return result.getResponse();
+
+  }
+
+}
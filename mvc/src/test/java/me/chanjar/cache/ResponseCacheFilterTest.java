@@ -0,0 +1,199 @@
+package me.chanjar.cache;
+
+import me.chanjar.web.Foo;
+import me.chanjar.web.FooController;
+import me.chanjar.web.ResponseCacheFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.MockitoTestExecutionListener;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@WebMvcTest
+@ContextConfiguration(classes = { FooController.class, ResponseCacheFilter.class })
+@TestExecutionListeners(listeners = MockitoTestExecutionListener.class)
+public class ResponseCacheFilterTest extends AbstractTestNGSpringContextTests {
+
+  @Autowired
+  private MockMvc mvc;
+
+  @Autowired
+  private ResponseCacheFilter cache;
+
+  @MockBean
+  private Foo foo;
+
+  @BeforeMethod
+  public void setUp() {
+    reset(foo);
+    when(foo.checkCodeDuplicate(anyString())).thenReturn(true);
+    when(foo.getCodesVersion()).thenReturn(1L);
+    cache.clear();
+    cache.setMaxBytes(1024 * 1024);
+    cache.setTtl(1, TimeUnit.MINUTES);
+  }
+
+  @Test
+  public void testHit() throws Exception {
+
+    long hits = cache.getHitCount();
+
+    check(get("/foo/check-code-dup").param("code", "123").param("a", "1"));
+    check(get("/foo/check-code-dup").param("a", "1").param("code", "123"))
+        .andExpect(header().string("ETag", "\"1\""))
+        .andExpect(header().string("Cache-Control", "max-age=60"));
+
+    verify(foo, times(1)).checkCodeDuplicate("123");
+    assertEquals(cache.getHitCount(), hits + 1);
+    assertEquals(cache.size(), 1);
+
+  }
+
+  @Test
+  public void testDifferentQuery() throws Exception {
+
+    check(get("/foo/check-code-dup").param("code", "123"));
+    check(get("/foo/check-code-dup").param("code", "124"));
+
+    verify(foo, times(1)).checkCodeDuplicate("123");
+    verify(foo, times(1)).checkCodeDuplicate("124");
+    assertEquals(cache.size(), 2);
+
+  }
+
+  @Test
+  public void testNotModifiedHit() throws Exception {
+
+    check(get("/foo/check-code-dup").param("code", "123"));
+    this.mvc.perform(get("/foo/check-code-dup").param("code", "123").header("If-None-Match", "\"1\""))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string("ETag", "\"1\""));
+
+    verify(foo, times(1)).checkCodeDuplicate("123");
+
+  }
+
+  @Test
+  public void testVersionInvalidation() throws Exception {
+
+    check(get("/foo/check-code-dup").param("code", "123"));
+    when(foo.getCodesVersion()).thenReturn(2L);
+    check(get("/foo/check-code-dup").param("code", "123"))
+        .andExpect(header().string("ETag", "\"2\""));
+
+    verify(foo, times(2)).checkCodeDuplicate("123");
+
+  }
+
+  @Test
+  public void testTtl() throws Exception {
+
+    cache.setTtl(0, TimeUnit.MILLISECONDS);
+    check(get("/foo/check-code-dup").param("code", "123"));
+    check(get("/foo/check-code-dup").param("code", "123"));
+
+    verify(foo, times(2)).checkCodeDuplicate("123");
+
+  }
+
+  @Test
+  public void testSizeBound() throws Exception {
+
+    check(get("/foo/check-code-dup").param("code", "0"));
+    long entryBytes = cache.getBytes();
+    // key, headers and overhead are charged, not only the body
+    assertTrue(entryBytes > 2 * "GET /foo/check-code-dup?code=0".length() + "true".length(), entryBytes + " bytes");
+
+    cache.clear();
+    cache.setMaxBytes(4 * entryBytes);
+    for (int i = 0; i < 10; i++) {
+      check(get("/foo/check-code-dup").param("code", String.valueOf(i)));
+    }
+
+    assertEquals(cache.size(), 4);
+    assertEquals(cache.getBytes(), 4 * entryBytes);
+
+    // the most recent entries are kept
+    check(get("/foo/check-code-dup").param("code", "9"));
+    check(get("/foo/check-code-dup").param("code", "0"));
+    verify(foo, times(1)).checkCodeDuplicate("9");
+    verify(foo, times(3)).checkCodeDuplicate("0");
+
+  }
+
+  @Test
+  public void testOtherPathsNotFiltered() throws Exception {
+
+    long requests = cache.getMissCount() + cache.getHitCount();
+    MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+      @Override
+      protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.getWriter().write("other");
+      }
+    });
+    cache.doFilter(new MockHttpServletRequest("GET", "/foo/other"), new MockHttpServletResponse(), chain);
+
+    assertEquals(cache.size(), 0);
+    assertEquals(cache.getMissCount() + cache.getHitCount(), requests);
+
+  }
+
+  @Test
+  public void testUnversionedNotCached() throws Exception {
+
+    when(foo.getCodesVersion()).thenReturn(-1L);
+    check(get("/foo/check-code-dup").param("code", "123"));
+    check(get("/foo/check-code-dup").param("code", "123"));
+
+    verify(foo, times(2)).checkCodeDuplicate("123");
+    assertEquals(cache.size(), 0);
+
+  }
+
+  @Test
+  public void testOversizedResponsePassedThrough() throws Exception {
+
+    cache.setMaxBytes("true".length() - 1);
+    check(get("/foo/check-code-dup").param("code", "123"));
+    check(get("/foo/check-code-dup").param("code", "123"));
+
+    verify(foo, times(2)).checkCodeDuplicate("123");
+    assertEquals(cache.size(), 0);
+
+  }
+
+  private ResultActions check(MockHttpServletRequestBuilder request) throws Exception {
+    return this.mvc.perform(request)
+        .andExpect(status().isOk())
+        .andExpect(content().string("true"));
+  }
+
+}
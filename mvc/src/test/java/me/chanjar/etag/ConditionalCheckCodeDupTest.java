@@ -0,0 +1,135 @@
+package me.chanjar.etag;
+
+import me.chanjar.web.Foo;
+import me.chanjar.web.FooController;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.MockitoTestExecutionListener;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.testng.Assert.assertEquals;
+
+@WebMvcTest
+@ContextConfiguration(classes = { FooController.class })
+@TestPropertySource(properties = "foo.cache.max-age-seconds=30")
+@TestExecutionListeners(listeners = MockitoTestExecutionListener.class)
+public class ConditionalCheckCodeDupTest extends AbstractTestNGSpringContextTests {
+
+  @Autowired
+  private MockMvc mvc;
+
+  @MockBean
+  private Foo foo;
+
+  @BeforeMethod
+  public void setUp() {
+    reset(foo);
+    when(foo.checkCodeDuplicate(anyString())).thenReturn(true);
+  }
+
+  @Test
+  public void testEtag() throws Exception {
+
+    when(foo.getCodesVersion()).thenReturn(42L);
+
+    MvcResult result = this.mvc.perform(get("/foo/check-code-dup").param("code", "123"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"42\""))
+        .andExpect(header().string("Cache-Control", "max-age=30"))
+        .andExpect(content().string("true"))
+        .andReturn();
+    assertEquals(result.getResponse().getHeaders("ETag").size(), 1);
+
+  }
+
+  @Test
+  public void testNotModified() throws Exception {
+
+    when(foo.getCodesVersion()).thenReturn(42L);
+
+    this.mvc.perform(get("/foo/check-code-dup").param("code", "123").header("If-None-Match", "\"42\""))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string("ETag", "\"42\""))
+        .andExpect(header().string("Cache-Control", "max-age=30"))
+        .andExpect(content().string(""));
+    verify(foo, never()).checkCodeDuplicate(anyString());
+
+  }
+
+  @Test
+  public void testVersionChanged() throws Exception {
+
+    when(foo.getCodesVersion()).thenReturn(43L);
+
+    this.mvc.perform(get("/foo/check-code-dup").param("code", "123").header("If-None-Match", "\"42\""))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"43\""))
+        .andExpect(content().string("true"));
+
+  }
+
+  @Test
+  public void testUnversioned() throws Exception {
+
+    when(foo.getCodesVersion()).thenReturn(-1L);
+
+    this.mvc.perform(get("/foo/check-code-dup").param("code", "123").header("If-None-Match", "\"-1\""))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist("ETag"))
+        .andExpect(header().doesNotExist("Cache-Control"))
+        .andExpect(content().string("true"));
+
+  }
+
+  @Test
+  public void testAsyncNotModified() throws Exception {
+
+    when(foo.getCodesVersion()).thenReturn(42L);
+
+    MvcResult result = this.mvc.perform(
+        get("/foo/check-code-dup/async").param("code", "123").header("If-None-Match", "\"42\""))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    this.mvc.perform(asyncDispatch(result))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string("Cache-Control", "max-age=30"));
+    verify(foo, never()).checkCodeDuplicate(anyString());
+
+  }
+
+  @Test
+  public void testAsyncEtag() throws Exception {
+
+    when(foo.getCodesVersion()).thenReturn(42L);
+
+    MvcResult result = this.mvc.perform(get("/foo/check-code-dup/async").param("code", "123"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    this.mvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Cache-Control", "max-age=30"))
+        .andExpect(content().string("true"));
+    assertEquals(result.getResponse().getHeaders("ETag").size(), 1);
+
+  }
+
+}
@@ -0,0 +1,80 @@
+package me.chanjar.load;
+
+import org.springframework.boot.context.embedded.LocalServerPort;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Compares the blocking and the async check on a slow {@code Foo} with the same number of worker threads: 16 tomcat
+ * threads for the blocking check, 16 executor threads for the async one. Both can complete at most
+ * 16 / 50ms = 320 checks per second; what differs is how they behave beyond that. Run with
+ * {@code mvn -pl mvc -Pload-test test}.
+ */
+@SpringBootTest(
+    classes = SlowFooConfiguration.class,
+    webEnvironment = RANDOM_PORT,
+    properties = {
+        "server.tomcat.max-threads=" + CheckCodeDupLoadTest.WORKERS,
+        "foo.async.threads=" + CheckCodeDupLoadTest.WORKERS,
+        "foo.async.queue-capacity=64",
+        "foo.async.timeout-millis=1000"
+    }
+)
+@Test(groups = "load")
+public class CheckCodeDupLoadTest extends AbstractTestNGSpringContextTests {
+
+  static final int WORKERS = 16;
+
+  @LocalServerPort
+  private int port;
+
+  public void testWithinCapacity() throws Exception {
+
+    LoadReport blocking = run("/foo/check-code-dup", 200);
+    LoadReport async = run("/foo/check-code-dup/async", 200);
+
+    logger.info("200 req/s blocking: " + blocking);
+    logger.info("200 req/s async:    " + async);
+
+    assertEquals(blocking.getErrors(), 0);
+    assertEquals(async.getErrors(), 0);
+
+  }
+
+  /**
+   * Past capacity the blocking check queues every request in front of tomcat and latency grows with the run, the
+   * async one answers the excess with 503 and keeps the latency of the checks it accepts bounded by its queue.
+   */
+  public void testOverload() throws Exception {
+
+    LoadReport blocking = run("/foo/check-code-dup", 480);
+    LoadReport async = run("/foo/check-code-dup/async", 480);
+
+    logger.info("480 req/s blocking: " + blocking);
+    logger.info("480 req/s async:    " + async);
+
+    assertTrue(async.getErrors() > 0, "async: " + async);
+    assertTrue(async.getLatency(99) < blocking.getLatency(99), "async: " + async + ", blocking: " + blocking);
+
+  }
+
+  private LoadReport run(String path, double rate) throws InterruptedException {
+
+    LoadHarness harness = new LoadHarness();
+    harness.setBaseUrl("http://localhost:" + port);
+    harness.setPaths(i -> path + "?code=" + i);
+    harness.setRatePerSecond(rate);
+    harness.setConcurrency(256);
+    harness.setDuration(3, TimeUnit.SECONDS);
+    return harness.run();
+
+  }
+
+}
@@ -0,0 +1,59 @@
+package me.chanjar.load;
+
+import me.chanjar.web.FooController;
+import me.chanjar.web.FooImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.context.embedded.LocalServerPort;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Drives {@code /foo/check-code-dup} on the real {@link FooController} and logs what it sustains, e.g.
+ * {@code mvn -pl mvc -Pload-test test -Dload.rate=5000 -Dload.concurrency=64 -Dload.duration-seconds=10}.
+ */
+@SpringBootTest(classes = FooControllerLoadTest.Config.class, webEnvironment = RANDOM_PORT)
+@Test(groups = "load")
+public class FooControllerLoadTest extends AbstractTestNGSpringContextTests {
+
+  @Configuration
+  @EnableAutoConfiguration
+  @Import({ FooController.class, FooImpl.class })
+  static class Config {
+  }
+
+  @LocalServerPort
+  private int port;
+
+  @Value("${load.rate:1000}")
+  private double rate;
+
+  @Value("${load.concurrency:32}")
+  private int concurrency;
+
+  @Value("${load.duration-seconds:3}")
+  private long durationSeconds;
+
+  public void testCheckCodeDuplicate() throws Exception {
+
+    LoadHarness harness = new LoadHarness();
+    harness.setBaseUrl("http://localhost:" + port);
+    harness.setRatePerSecond(rate);
+    harness.setConcurrency(concurrency);
+    harness.setDuration(durationSeconds, TimeUnit.SECONDS);
+    LoadReport report = harness.run();
+
+    logger.info("check-code-dup: " + report);
+    assertEquals(report.getErrors(), 0);
+
+  }
+
+}
@@ -0,0 +1,189 @@
+package me.chanjar.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+/**
+ * Open-loop HTTP load: request {@code i} is due at {@code start + i / rate} whether or not earlier ones have
+ * answered, and sent by the first of {@code concurrency} clients that is free. Latency is measured from the due
+ * time, so a stalled server is charged for the requests it kept waiting (coordinated omission), and service time
+ * from the actual send.
+ * <p>
+ * Clients keep their connections alive. {@code HttpURLConnection} pools at most {@code http.maxConnections} idle
+ * connections per server, 5 by default, and opens a new connection for every other request, so the harness raises
+ * the property to {@code concurrency} before its first request. The JDK reads it once, when the first connection
+ * is pooled, which is why the value in effect is the one in the {@link LoadReport}.
+ */
+public class LoadHarness {
+
+  private static final String MAX_CONNECTIONS = "http.maxConnections";
+
+  private static final int DEFAULT_MAX_CONNECTIONS = 5;
+
+  private String baseUrl;
+
+  private LongFunction<String> paths = i -> "/foo/check-code-dup?code=" + i;
+
+  private double ratePerSecond = 100;
+
+  private int concurrency = 16;
+
+  private long durationMillis = 3000;
+
+  private long warmupMillis = 500;
+
+  public void setBaseUrl(String baseUrl) {
+    this.baseUrl = baseUrl;
+  }
+
+  /**
+   * Path and query of request {@code i}.
+   */
+  public void setPaths(LongFunction<String> paths) {
+    this.paths = paths;
+  }
+
+  public void setRatePerSecond(double ratePerSecond) {
+    this.ratePerSecond = ratePerSecond;
+  }
+
+  public void setConcurrency(int concurrency) {
+    this.concurrency = concurrency;
+  }
+
+  public void setDuration(long duration, TimeUnit unit) {
+    this.durationMillis = unit.toMillis(duration);
+  }
+
+  public void setWarmup(long warmup, TimeUnit unit) {
+    this.warmupMillis = unit.toMillis(warmup);
+  }
+
+  public LoadReport run() throws InterruptedException {
+
+    if (Integer.getInteger(MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS) < concurrency) {
+      System.setProperty(MAX_CONNECTIONS, String.valueOf(concurrency));
+    }
+    if (warmupMillis > 0) {
+      run(warmupMillis);
+    }
+    return run(durationMillis);
+
+  }
+
+  private LoadReport run(long millis) throws InterruptedException {
+
+    long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+    long start = System.nanoTime();
+    long end = start + TimeUnit.MILLISECONDS.toNanos(millis);
+    AtomicLong next = new AtomicLong();
+
+    ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+    List<Future<Recording>> recordings = new ArrayList<>();
+    for (int c = 0; c < concurrency; c++) {
+      recordings.add(clients.submit(() -> {
+        Recording recording = new Recording();
+        for (long i = next.getAndIncrement(); start + i * intervalNanos < end; i = next.getAndIncrement()) {
+          long due = start + i * intervalNanos;
+          for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+            LockSupport.parkNanos(wait);
+          }
+          long sent = System.nanoTime();
+          boolean ok = get(paths.apply(i));
+          long done = System.nanoTime();
+          recording.add(done - due, done - sent, ok, done);
+        }
+        return recording;
+      }));
+    }
+    clients.shutdown();
+
+    Recording total = new Recording();
+    try {
+      for (Future<Recording> recording : recordings) {
+        total.addAll(recording.get());
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+    return total.report(ratePerSecond, concurrency, Integer.getInteger(MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS),
+        total.lastDone - start);
+
+  }
+
+  private boolean get(String path) {
+    try {
+      HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+      int status = connection.getResponseCode();
+      try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+        if (in != null) {
+          while (in.read() != -1) {
+            // drain so the connection can be reused
+          }
+        }
+      }
+      return status < 400;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  private static class Recording {
+
+    private long[] latencies = new long[1024];
+
+    private long[] serviceTimes = new long[1024];
+
+    private int count;
+
+    private int errors;
+
+    private long lastDone;
+
+    void add(long latency, long serviceTime, boolean ok, long done) {
+      lastDone = Math.max(lastDone, done);
+      if (!ok) {
+        errors++;
+        return;
+      }
+      if (count == latencies.length) {
+        latencies = Arrays.copyOf(latencies, count * 2);
+        serviceTimes = Arrays.copyOf(serviceTimes, count * 2);
+      }
+      latencies[count] = latency;
+      serviceTimes[count] = serviceTime;
+      count++;
+    }
+
+    void addAll(Recording other) {
+      for (int i = 0; i < other.count; i++) {
+        add(other.latencies[i], other.serviceTimes[i], true, other.lastDone);
+      }
+      errors += other.errors;
+    }
+
+    LoadReport report(double rate, int concurrency, int maxConnections, long elapsedNanos) {
+      long[] sortedLatencies = Arrays.copyOf(latencies, count);
+      long[] sortedServiceTimes = Arrays.copyOf(serviceTimes, count);
+      Arrays.sort(sortedLatencies);
+      Arrays.sort(sortedServiceTimes);
+      return new LoadReport(rate, concurrency, maxConnections, count, errors, elapsedNanos, sortedLatencies,
+          sortedServiceTimes);
+    }
+
+  }
+
+}
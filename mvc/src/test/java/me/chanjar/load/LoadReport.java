@@ -0,0 +1,99 @@
+package me.chanjar.load;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a {@link LoadHarness} run. Latencies are counted from when each request was due, service times from
+ * when it was actually sent; both in nanoseconds. Throughput and percentiles cover successful requests only, failed
+ * ones (e.g. a shed 503) are just counted as errors. The keep-alive pool size is reported, as too small a pool
+ * makes the run measure connection setup rather than the endpoint.
+ */
+public class LoadReport {
+
+  private final double targetRate;
+
+  private final int concurrency;
+
+  private final int maxConnections;
+
+  private final int requests;
+
+  private final int errors;
+
+  private final long elapsedNanos;
+
+  private final long[] latencies;
+
+  private final long[] serviceTimes;
+
+  LoadReport(double targetRate, int concurrency, int maxConnections, int requests, int errors, long elapsedNanos,
+      long[] latencies, long[] serviceTimes) {
+    this.targetRate = targetRate;
+    this.concurrency = concurrency;
+    this.maxConnections = maxConnections;
+    this.requests = requests;
+    this.errors = errors;
+    this.elapsedNanos = elapsedNanos;
+    this.latencies = latencies;
+    this.serviceTimes = serviceTimes;
+  }
+
+  /**
+   * {@code http.maxConnections} in effect, the idle connections kept alive per server.
+   */
+  public int getMaxConnections() {
+    return maxConnections;
+  }
+
+  public int getRequests() {
+    return requests;
+  }
+
+  public int getErrors() {
+    return errors;
+  }
+
+  /**
+   * Completed requests per second.
+   */
+  public double getThroughput() {
+    return elapsedNanos <= 0 ? 0 : requests * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+  }
+
+  /**
+   * @param percentile between 0 and 100
+   */
+  public long getLatency(double percentile) {
+    return valueAt(latencies, percentile);
+  }
+
+  /**
+   * @param percentile between 0 and 100
+   */
+  public long getServiceTime(double percentile) {
+    return valueAt(serviceTimes, percentile);
+  }
+
+  private static long valueAt(long[] sorted, double percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(sorted.length * percentile / 100) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+  }
+
+  @Override
+  public String toString() {
+    return String.format("target %.0f req/s with %d clients, %d keep-alive connections: %d requests, %d errors, "
+            + "%.0f req/s, latency p50 %.1f ms p99 %.1f ms p99.9 %.1f ms max %.1f ms, "
+            + "service time p50 %.1f ms p99 %.1f ms",
+        targetRate, concurrency, maxConnections, requests, errors, getThroughput(),
+        millis(getLatency(50)), millis(getLatency(99)), millis(getLatency(99.9)), millis(getLatency(100)),
+        millis(getServiceTime(50)), millis(getServiceTime(99)));
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1e6;
+  }
+
+}
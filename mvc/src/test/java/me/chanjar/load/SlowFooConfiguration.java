@@ -0,0 +1,33 @@
+package me.chanjar.load;
+
+import me.chanjar.web.Foo;
+import me.chanjar.web.FooController;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Real server with {@link FooController} and a {@link Foo} that takes {@link #CHECK_MILLIS} per check,
+ * like a lookup in a remote store.
+ */
+@Configuration
+@EnableAutoConfiguration
+@Import(FooController.class)
+public class SlowFooConfiguration {
+
+  static final long CHECK_MILLIS = 50;
+
+  @Bean
+  public Foo foo() {
+    return code -> {
+      try {
+        Thread.sleep(CHECK_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return code.endsWith("0");
+    };
+  }
+
+}